@@ -0,0 +1,182 @@
+package cliente;
+
+import model.ContextoTLS;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+
+/**
+ * TLS de una SesionQuiz sobre su canal no bloqueante (SSLEngine).
+ *
+ * Solo lo usa el hilo del multiplexor. Todas las sesiones de un
+ * MultiplexorQuiz comparten el SSLContext, asi las reconexiones al mismo
+ * host:puerto reanudan la sesion en vez de hacer el handshake completo.
+ */
+class CanalTLS {
+    private static final ByteBuffer VACIO = ByteBuffer.allocate(0);
+
+    private final SSLEngine motor;
+    // Bytes cifrados recibidos y aun sin descifrar (modo escritura)
+    private ByteBuffer redEntrada;
+    // Bytes cifrados pendientes de enviar (modo lectura)
+    private ByteBuffer redSalida;
+    // Datos ya descifrados para el decodificador (modo escritura)
+    private ByteBuffer claro;
+
+    private final long inicio = System.nanoTime();
+    private long duracionHandshake = -1;
+
+    CanalTLS(SSLContext contexto, String host, int puerto) throws SSLException {
+        motor = contexto.createSSLEngine(host, puerto);
+        motor.setUseClientMode(true);
+        ContextoTLS.verificarHost(motor);
+        int red = motor.getSession().getPacketBufferSize();
+        redEntrada = ByteBuffer.allocate(red);
+        redSalida = ByteBuffer.allocate(red);
+        redSalida.flip();
+        claro = ByteBuffer.allocate(motor.getSession().getApplicationBufferSize());
+        motor.beginHandshake();
+    }
+
+    // Nanosegundos desde la conexion hasta terminar el handshake (-1 si no ha terminado)
+    long getDuracionHandshake() {
+        return duracionHandshake;
+    }
+
+    // Guardar bytes cifrados recien leidos del canal
+    void recibir(ByteBuffer leidos) {
+        if (redEntrada.remaining() < leidos.remaining()) {
+            redEntrada = agrandar(redEntrada, leidos.remaining());
+        }
+        redEntrada.put(leidos);
+    }
+
+    // Datos descifrados (modo escritura: el que los lee hace flip y compact)
+    ByteBuffer getClaro() {
+        return claro;
+    }
+
+    /**
+     * Avanzar el handshake, descifrar lo recibido y cifrar y enviar lo pendiente.
+     * Devuelve true si no queda nada por escribir, false si el canal esta lleno.
+     */
+    boolean bombear(SocketChannel canal, Queue<ByteBuffer> pendientes) throws IOException {
+        if (!vaciar(canal)) return false;
+        while (true) {
+            switch (motor.getHandshakeStatus()) {
+                case NEED_TASK:
+                    Runnable tarea;
+                    while ((tarea = motor.getDelegatedTask()) != null) {
+                        tarea.run();
+                    }
+                    continue;
+                case NEED_WRAP:
+                    cifrar(VACIO);
+                    if (!vaciar(canal)) return false;
+                    continue;
+                case NEED_UNWRAP:
+                case NEED_UNWRAP_AGAIN:
+                    if (!descifrar()) return true; // falta un registro entero: esperar a leer
+                    continue;
+                default:
+                    break;
+            }
+
+            if (duracionHandshake < 0) {
+                duracionHandshake = System.nanoTime() - inicio;
+            }
+            // Datos de la aplicacion (o mensajes tras el handshake, como los tickets)
+            descifrar();
+            if (motor.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
+                continue;
+            }
+            ByteBuffer buffer;
+            while ((buffer = pendientes.peek()) != null) {
+                cifrar(buffer);
+                if (!buffer.hasRemaining()) {
+                    pendientes.poll();
+                }
+                if (!vaciar(canal)) return false;
+            }
+            return true;
+        }
+    }
+
+    // Descifrar lo que haya en redEntrada; devuelve true si avanzo algo
+    private boolean descifrar() throws IOException {
+        boolean avance = false;
+        redEntrada.flip();
+        try {
+            while (redEntrada.hasRemaining()) {
+                SSLEngineResult r = motor.unwrap(redEntrada, claro);
+                switch (r.getStatus()) {
+                    case BUFFER_UNDERFLOW:
+                        return avance;
+                    case BUFFER_OVERFLOW:
+                        claro = agrandar(claro, motor.getSession().getApplicationBufferSize());
+                        continue;
+                    case CLOSED:
+                        throw new IOException("El servidor cerro la sesion TLS");
+                    default:
+                        break;
+                }
+                if (r.bytesConsumed() == 0 && r.bytesProduced() == 0) {
+                    return avance;
+                }
+                avance = true;
+                SSLEngineResult.HandshakeStatus hs = r.getHandshakeStatus();
+                if (hs == SSLEngineResult.HandshakeStatus.NEED_TASK || hs == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    return true; // lo resuelve bombear antes de seguir
+                }
+            }
+            return avance;
+        } finally {
+            redEntrada.compact();
+        }
+    }
+
+    private void cifrar(ByteBuffer origen) throws IOException {
+        redSalida.compact();
+        try {
+            while (true) {
+                SSLEngineResult r = motor.wrap(origen, redSalida);
+                if (r.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    redSalida = agrandar(redSalida, motor.getSession().getPacketBufferSize());
+                    continue;
+                }
+                if (r.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new IOException("Sesion TLS cerrada");
+                }
+                if (!origen.hasRemaining() || r.bytesConsumed() == 0) {
+                    return;
+                }
+            }
+        } finally {
+            redSalida.flip();
+        }
+    }
+
+    // Escribir lo cifrado pendiente; true si se vacio
+    private boolean vaciar(SocketChannel canal) throws IOException {
+        while (redSalida.hasRemaining()) {
+            if (canal.write(redSalida) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Copia en un buffer mas grande (mismo modo que el original)
+    private static ByteBuffer agrandar(ByteBuffer buffer, int extra) {
+        ByteBuffer nuevo = ByteBuffer.allocate(buffer.capacity() + extra);
+        buffer.flip();
+        nuevo.put(buffer);
+        return nuevo;
+    }
+}
@@ -1,31 +1,33 @@
 package cliente;
 
-import model.ProtocoloHTTP;
+import model.ContextoTLS;
+import model.Pregunta;
 
 import java.io.*;
-import java.net.*;
 import java.util.Scanner;
+import java.util.concurrent.*;
 
 /**
  * Cliente del Quiz multijugador.
  * Basado en el patron de ClienteChat.java
  *
- * Flujo:
+ * Es una capa de consola sobre MultiplexorQuiz/SesionQuiz:
  * 1. Se conecta al servidor y envia su nombre (POST /nombre)
- * 2. Hilo listener escucha mensajes del servidor (preguntas, ranking, etc)
+ * 2. OyenteConsola muestra los mensajes del servidor (preguntas, ranking, etc)
  * 3. Hilo principal lee respuestas del usuario y las envia (POST /respuesta)
  */
 public class ClienteQuiz {
     private static final String HOST = "localhost"; // Poner aqui la IP del servidor
     private static final int PUERTO = 8080;
 
-    private Socket socket;
-    private PrintWriter salida;
-    private BufferedReader entrada;
+    private MultiplexorQuiz multiplexor;
+    private SesionQuiz sesion;
     private Scanner scanner;
     private volatile boolean conectado = true;
     // Flag para saber si se puede responder (hay pregunta activa)
     private volatile boolean puedeResponder = false;
+    // Se completa cuando el servidor pide el nombre (o falla si se cierra antes)
+    private final CompletableFuture<String> peticionNombre = new CompletableFuture<>();
 
     public ClienteQuiz() {
         scanner = new Scanner(System.in);
@@ -33,36 +35,26 @@ public class ClienteQuiz {
 
     public void iniciar() {
         try {
-            socket = new Socket(HOST, PUERTO);
-            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            salida = new PrintWriter(socket.getOutputStream(), true);
+            multiplexor = ContextoTLS.activo() ? new MultiplexorQuiz(ContextoTLS.cliente()) : new MultiplexorQuiz();
+            sesion = multiplexor.conectar(HOST, PUERTO, null, new OyenteConsola());
 
             System.out.println("╔══════════════════════════════════╗");
             System.out.println("║       CLIENTE QUIZ BLOOKET       ║");
             System.out.println("╚══════════════════════════════════╝");
-            System.out.println("Conectado al servidor " + HOST + ":" + PUERTO + "\n");
+            System.out.println("Conectado al servidor " + HOST + ":" + PUERTO
+                    + (sesion.isTLS() ? " (TLS)" : "") + "\n");
 
-            // Recibir peticion de nombre
-            String[] respServ = ProtocoloHTTP.leerRespuesta(entrada);
-            if (respServ != null && respServ[1].equals("NOMBRE")) {
-                System.out.println(respServ[2]);
+            // Recibir peticion de nombre (si el servidor esta lleno antes llegan avisos de COLA)
+            try {
+                System.out.println(peticionNombre.get());
+            } catch (ExecutionException e) {
+                return;
             }
 
             // Enviar nombre
             System.out.print("Tu nombre: ");
             String nombre = scanner.nextLine();
-            ProtocoloHTTP.enviarPeticion(salida, "POST", "/nombre", nombre);
-
-            // Recibir bienvenida
-            respServ = ProtocoloHTTP.leerRespuesta(entrada);
-            if (respServ != null) {
-                System.out.println("\n" + respServ[2] + "\n");
-            }
-
-            // Lanzar hilo para escuchar mensajes del servidor
-            Thread listener = new Thread(new ListenerServidor());
-            listener.setDaemon(true);
-            listener.start();
+            sesion.enviarNombre(nombre);
 
             while (conectado) {
                 String input = scanner.nextLine();
@@ -84,122 +76,129 @@ public class ClienteQuiz {
                     continue;
                 }
 
-                ProtocoloHTTP.enviarPeticion(salida, "POST", "/respuesta", input.toUpperCase());
+                sesion.responder(input.charAt(0));
                 puedeResponder = false;
             }
 
         } catch (IOException e) {
             System.err.println("Error de conexion: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
             cerrarConexion();
         }
     }// fin iniciar
 
     private void cerrarConexion() {
-        try {
-            conectado = false;
-            if (scanner != null) scanner.close();
-            if (salida != null) salida.close();
-            if (entrada != null) entrada.close();
-            if (socket != null) socket.close();
-            System.out.println("\nDesconectado del servidor.");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        conectado = false;
+        if (scanner != null) scanner.close();
+        if (sesion != null) sesion.cerrar();
+        if (multiplexor != null) multiplexor.close();
+        System.out.println("\nDesconectado del servidor.");
     }// fin cerrarConexion
 
     /**
-     * Hilo que escucha mensajes HTTP del servidor y los muestra en pantalla.
-     * Basado en ListenerServidor de ClienteChat.java
+     * Muestra en pantalla los mensajes del servidor.
+     * Basado en ListenerServidor de ClienteChat.java; ahora lo llama el hilo del multiplexor.
      */
-    private class ListenerServidor implements Runnable {
+    private class OyenteConsola implements OyenteQuiz {
         @Override
-        public void run() {
-            try {
-                while (conectado) {
-                    String[] respuesta = ProtocoloHTTP.leerRespuesta(entrada);
-                    if (respuesta == null) break;
-
-                    String tipo = respuesta[1];
-                    String cuerpo = respuesta[2];
-
-                    switch (tipo) {
-                        case "PREGUNTA":
-                            mostrarPregunta(cuerpo);
-                            puedeResponder = true;
-                            break;
-
-                        case "CONFIRMACION":
-                            System.out.println("  >> " + cuerpo);
-                            break;
-
-                        case "RESULTADO":
-                            System.out.println("\n  *** " + cuerpo + " ***");
-                            break;
-
-                        case "RANKING":
-                            mostrarRanking(cuerpo);
-                            break;
-
-                        case "NEXT":
-                            System.out.println("\n  Siguiente pregunta en breve...\n");
-                            break;
-
-                        case "INICIO":
-                            System.out.println("  >> " + cuerpo + "\n");
-                            break;
-
-                        case "INFO":
-                            System.out.println("  [i] " + cuerpo);
-                            break;
-
-                        case "ERROR":
-                            System.out.println("  [!] " + cuerpo);
-                            break;
-
-                        case "FIN":
-                            System.out.println("\n╔══════════════════════════════════╗");
-                            System.out.println("║         JUEGO TERMINADO          ║");
-                            System.out.println("╚══════════════════════════════════╝");
-                            mostrarRanking(cuerpo);
-                            conectado = false;
-                            break;
-
-                        default:
-                            System.out.println("  " + cuerpo);
-                            break;
-                    }
-                }
-            } catch (IOException e) {
-                if (conectado) {
-                    System.err.println("Conexion perdida con el servidor");
-                }
+        public void alPedirNombre(SesionQuiz sesion, String mensaje) {
+            peticionNombre.complete(mensaje);
+        }
+
+        @Override
+        public void alCola(SesionQuiz sesion, String mensaje) {
+            System.out.println("  [i] " + mensaje);
+        }
+
+        @Override
+        public void alBienvenida(SesionQuiz sesion, String mensaje) {
+            System.out.println("\n" + mensaje + "\n");
+        }
+
+        @Override
+        public void alPregunta(SesionQuiz sesion, int numero, int total, Pregunta pregunta) {
+            mostrarPregunta(numero + "/" + total, pregunta);
+            puedeResponder = true;
+        }
+
+        @Override
+        public void alConfirmacion(SesionQuiz sesion, String mensaje) {
+            System.out.println("  >> " + mensaje);
+        }
+
+        @Override
+        public void alResultado(SesionQuiz sesion, String mensaje) {
+            System.out.println("\n  *** " + mensaje + " ***");
+        }
+
+        @Override
+        public void alRanking(SesionQuiz sesion, String ranking) {
+            mostrarRanking(ranking);
+        }
+
+        @Override
+        public void alNext(SesionQuiz sesion) {
+            System.out.println("\n  Siguiente pregunta en breve...\n");
+        }
+
+        @Override
+        public void alInicio(SesionQuiz sesion, String mensaje) {
+            System.out.println("  >> " + mensaje + "\n");
+        }
+
+        @Override
+        public void alInfo(SesionQuiz sesion, String mensaje) {
+            System.out.println("  [i] " + mensaje);
+        }
+
+        @Override
+        public void alError(SesionQuiz sesion, String mensaje) {
+            System.out.println("  [!] " + mensaje);
+            if (!peticionNombre.isDone()) {
+                // Rechazado antes de entrar (servidor lleno): no es una conexion perdida
+                conectado = false;
             }
         }
-    }// fin ListenerServidor
-
-    private void mostrarPregunta(String cuerpo) {
-        // Formato: numPregunta/total|textoPregunta|opA|opB|opC|opD
-        String[] partes = cuerpo.split("\\|");
-        if (partes.length >= 6) {
-            String numInfo = partes[0]; // "1/5"
-            String texto = partes[1];
-            String opA = partes[2];
-            String opB = partes[3];
-            String opC = partes[4];
-            String opD = partes[5];
-
-            System.out.println("┌──────────────────────────────────────┐");
-            System.out.println("  PREGUNTA " + numInfo);
-            System.out.println("  " + texto);
-            System.out.println("├──────────────────────────────────────┤");
-            System.out.println("    A) " + opA);
-            System.out.println("    B) " + opB);
-            System.out.println("    C) " + opC);
-            System.out.println("    D) " + opD);
-            System.out.println("└──────────────────────────────────────┘");
-            System.out.print("  Tu respuesta (A/B/C/D): ");
+
+        @Override
+        public void alFin(SesionQuiz sesion, String rankingFinal) {
+            System.out.println("\n╔══════════════════════════════════╗");
+            System.out.println("║         JUEGO TERMINADO          ║");
+            System.out.println("╚══════════════════════════════════╝");
+            mostrarRanking(rankingFinal);
+            conectado = false;
+        }
+
+        @Override
+        public void alOtro(SesionQuiz sesion, String tipo, String mensaje) {
+            System.out.println("  " + mensaje);
+        }
+
+        @Override
+        public void alDesconectar(SesionQuiz sesion, Throwable causa) {
+            if (conectado) {
+                System.err.println(peticionNombre.isDone()
+                        ? "Conexion perdida con el servidor"
+                        : "No se pudo conectar con el servidor");
+            }
+            conectado = false;
+            peticionNombre.completeExceptionally(new IOException("Conexion cerrada", causa));
         }
+    }// fin OyenteConsola
+
+    private void mostrarPregunta(String numInfo, Pregunta pregunta) {
+        System.out.println("┌──────────────────────────────────────┐");
+        System.out.println("  PREGUNTA " + numInfo + "  (" + pregunta.getTiempoLimite() + "s)");
+        System.out.println("  " + pregunta.getTexto());
+        System.out.println("├──────────────────────────────────────┤");
+        System.out.println("    A) " + pregunta.getOpcionA());
+        System.out.println("    B) " + pregunta.getOpcionB());
+        System.out.println("    C) " + pregunta.getOpcionC());
+        System.out.println("    D) " + pregunta.getOpcionD());
+        System.out.println("└──────────────────────────────────────┘");
+        System.out.print("  Tu respuesta (A/B/C/D): ");
     }
 
     private void mostrarRanking(String cuerpo) {
@@ -0,0 +1,124 @@
+package cliente;
+
+import model.ContextoTLS;
+import model.Pregunta;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga: N jugadores bot sobre un solo MultiplexorQuiz.
+ * Cada bot responde una opcion al azar tras un retardo aleatorio y se mide
+ * la latencia de confirmacion de cada respuesta y el tiempo de entrada
+ * (conexion hasta BIENVENIDA; con todos de golpe sirve para probar la
+ * aceptacion del servidor, ver AceptadorConexiones).
+ *
+ * Uso: java cliente.GeneradorCarga [host] [puerto] [bots] [retardoMaxMs] [conexionesPorSegundo]
+ * (conexionesPorSegundo = 0: todos los bots conectan de golpe)
+ * Con -Dquiz.tls=true los bots van por TLS y se informa del tiempo medio de handshake.
+ */
+public class GeneradorCarga {
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int puerto = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int bots = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int retardoMax = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        int ritmo = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        AtomicInteger conectados = new AtomicInteger();
+        AtomicInteger terminados = new AtomicInteger();
+        AtomicLong respuestas = new AtomicLong();
+        AtomicLong latenciaTotal = new AtomicLong();
+        AtomicLong latenciaMax = new AtomicLong();
+        AtomicLong handshakes = new AtomicLong();
+        AtomicLong handshakeTotal = new AtomicLong();
+        AtomicLong entradaTotal = new AtomicLong();
+        AtomicLong entradaMax = new AtomicLong();
+        CountDownLatch fin = new CountDownLatch(bots);
+        ScheduledExecutorService temporizador = Executors.newSingleThreadScheduledExecutor();
+        Random random = new Random();
+
+        OyenteQuiz bot = new OyenteQuiz() {
+            @Override
+            public void alBienvenida(SesionQuiz sesion, String mensaje) {
+                conectados.incrementAndGet();
+                long entrada = sesion.getTiempoEntrada().toNanos() / 1000;
+                entradaTotal.addAndGet(entrada);
+                entradaMax.accumulateAndGet(entrada, Math::max);
+                Duration handshake = sesion.getHandshakeTLS();
+                if (handshake != null) {
+                    handshakes.incrementAndGet();
+                    handshakeTotal.addAndGet(handshake.toNanos() / 1000);
+                }
+            }
+
+            @Override
+            public void alPregunta(SesionQuiz sesion, int numero, int total, Pregunta pregunta) {
+                char opcion = "ABCD".charAt(random.nextInt(4));
+                temporizador.schedule(() -> sesion.responder(opcion).thenAccept(latencia -> {
+                    long micros = latencia.toNanos() / 1000;
+                    respuestas.incrementAndGet();
+                    latenciaTotal.addAndGet(micros);
+                    latenciaMax.accumulateAndGet(micros, Math::max);
+                }), random.nextInt(retardoMax + 1), TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void alFin(SesionQuiz sesion, String rankingFinal) {
+                terminados.incrementAndGet();
+                sesion.cerrar();
+            }
+
+            @Override
+            public void alDesconectar(SesionQuiz sesion, Throwable causa) {
+                fin.countDown();
+            }
+        };
+
+        boolean tls = ContextoTLS.activo();
+        System.out.println("[*] Lanzando " + bots + " bots contra " + host + ":" + puerto + (tls ? " (TLS)" : ""));
+        try (MultiplexorQuiz multiplexor = tls ? new MultiplexorQuiz(ContextoTLS.cliente()) : new MultiplexorQuiz()) {
+            for (int i = 0; i < bots; i++) {
+                try {
+                    multiplexor.conectar(host, puerto, "Bot_" + i, bot);
+                } catch (IOException e) {
+                    System.out.println("[!] Bot_" + i + ": " + e.getMessage());
+                    fin.countDown();
+                }
+                // Repartir las conexiones en tandas cada 10 ms
+                if (ritmo > 0 && (i + 1) % Math.max(1, ritmo / 100) == 0) {
+                    Thread.sleep(10);
+                }
+            }
+
+            // Informe cada 5 segundos hasta que se desconecten todos
+            while (!fin.await(5, TimeUnit.SECONDS)) {
+                informe(multiplexor.getSesiones(), conectados.get(), respuestas.get(), latenciaTotal.get(), latenciaMax.get());
+            }
+            informe(0, conectados.get(), respuestas.get(), latenciaTotal.get(), latenciaMax.get());
+            System.out.println("[*] " + terminados.get() + " bots llegaron al final de la partida");
+            if (conectados.get() > 0) {
+                System.out.println("[*] Entrada (conexion hasta BIENVENIDA): media " + entradaTotal.get() / conectados.get()
+                        + "us max " + entradaMax.get() + "us");
+            }
+            if (handshakes.get() > 0) {
+                System.out.println("[*] Handshake TLS medio: " + handshakeTotal.get() / handshakes.get()
+                        + "us (" + handshakes.get() + " sesiones)");
+            }
+        } finally {
+            temporizador.shutdownNow();
+        }
+    }
+
+    private static void informe(int abiertas, int conectados, long respuestas, long latenciaTotal, long latenciaMax) {
+        long media = respuestas == 0 ? 0 : latenciaTotal / respuestas;
+        System.out.println("[*] sesiones=" + abiertas + " registrados=" + conectados
+                + " respuestas=" + respuestas
+                + " latencia media=" + media + "us max=" + latenciaMax + "us");
+    }
+}
@@ -0,0 +1,191 @@
+package cliente;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cliente asincrono del Quiz: muchas sesiones (jugadores) sobre un unico hilo
+ * con un Selector, en vez de un socket y dos hilos por jugador.
+ *
+ * Uso:
+ *   MultiplexorQuiz multiplexor = new MultiplexorQuiz();
+ *   SesionQuiz sesion = multiplexor.conectar("localhost", 8080, "Ana", new OyenteQuiz() {
+ *       public void alPregunta(SesionQuiz s, int numero, int total, Pregunta p) {
+ *           s.responder('B').thenAccept(latencia -> ...);
+ *       }
+ *   });
+ *
+ * Lo usan ClienteQuiz (consola) y GeneradorCarga (bots).
+ *
+ * Con new MultiplexorQuiz(ContextoTLS.cliente()) todas las sesiones van por
+ * TLS (SSLEngine) y comparten el contexto y su cache de sesiones.
+ */
+public class MultiplexorQuiz implements Closeable {
+    // Buffer de lectura compartido: solo lo usa el hilo del multiplexor
+    private static final int TAM_LECTURA = 64 * 1024;
+
+    private final Selector selector;
+    private final Thread hilo;
+    private final Queue<Runnable> tareas = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer lectura = ByteBuffer.allocateDirect(TAM_LECTURA);
+    private volatile boolean activo = true;
+    // null = conexiones en claro
+    private final SSLContext contextoTLS;
+
+    public MultiplexorQuiz() throws IOException {
+        this(null);
+    }
+
+    public MultiplexorQuiz(SSLContext contextoTLS) throws IOException {
+        this.contextoTLS = contextoTLS;
+        selector = Selector.open();
+        hilo = new Thread(this::bucle, "quiz-multiplexor");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Abrir una sesion nueva. Si nombre es null, el servidor lo pedira
+     * mediante OyenteQuiz.alPedirNombre.
+     */
+    public SesionQuiz conectar(String host, int puerto, String nombre, OyenteQuiz oyente) throws IOException {
+        SocketChannel canal = SocketChannel.open();
+        canal.configureBlocking(false);
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        CanalTLS tls = contextoTLS == null ? null : new CanalTLS(contextoTLS, host, puerto);
+        SesionQuiz sesion = new SesionQuiz(this, canal, nombre, oyente, tls);
+        boolean conectado = canal.connect(new InetSocketAddress(host, puerto));
+        ejecutar(() -> registrar(sesion, conectado));
+        return sesion;
+    }
+
+    // Numero de sesiones abiertas
+    public int getSesiones() {
+        return selector.keys().size();
+    }
+
+    @Override
+    public void close() {
+        activo = false;
+        selector.wakeup();
+        try {
+            hilo.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======================== HILO DEL MULTIPLEXOR ========================
+
+    // Ejecutar una tarea en el hilo del multiplexor
+    void ejecutar(Runnable tarea) {
+        tareas.add(tarea);
+        selector.wakeup();
+    }
+
+    void solicitarEscritura(SesionQuiz sesion) {
+        ejecutar(() -> escribir(sesion));
+    }
+
+    private void registrar(SesionQuiz sesion, boolean conectado) {
+        try {
+            int interes = conectado ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT;
+            sesion.clave = sesion.getCanal().register(selector, interes, sesion);
+            if (conectado) {
+                // Con TLS el cliente habla primero (ClientHello)
+                escribir(sesion);
+            }
+        } catch (IOException e) {
+            sesion.alCerrar(e);
+        }
+    }
+
+    private void bucle() {
+        try {
+            while (activo) {
+                selector.select();
+
+                Runnable tarea;
+                while ((tarea = tareas.poll()) != null) {
+                    tarea.run();
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey clave = it.next();
+                    it.remove();
+                    atender(clave);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("Multiplexor detenido: " + e.getMessage());
+        } finally {
+            for (SelectionKey clave : selector.keys()) {
+                ((SesionQuiz) clave.attachment()).alCerrar(null);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void atender(SelectionKey clave) {
+        SesionQuiz sesion = (SesionQuiz) clave.attachment();
+        if (!clave.isValid()) return;
+        try {
+            if (clave.isConnectable()) {
+                sesion.getCanal().finishConnect();
+                clave.interestOps(SelectionKey.OP_READ);
+                escribir(sesion);
+                return;
+            }
+            if (clave.isWritable()) {
+                escribir(sesion);
+            }
+            if (clave.isValid() && clave.isReadable()) {
+                lectura.clear();
+                int leidos = sesion.getCanal().read(lectura);
+                if (leidos == -1) {
+                    sesion.alCerrar(null);
+                    return;
+                }
+                lectura.flip();
+                sesion.leer(lectura);
+                if (sesion.isTLS()) {
+                    // Descifrar y, si el handshake lo pide, responder
+                    escribir(sesion);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            sesion.alCerrar(e);
+        }
+    }
+
+    // Vaciar la cola de la sesion; si el socket no admite mas, esperar a OP_WRITE
+    private void escribir(SesionQuiz sesion) {
+        SelectionKey clave = sesion.clave;
+        if (clave == null || !clave.isValid() || !sesion.getCanal().isConnected()) return;
+        try {
+            if (sesion.escribir()) {
+                clave.interestOps(SelectionKey.OP_READ);
+            } else {
+                clave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            sesion.alCerrar(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package cliente;
+
+import model.Pregunta;
+
+/**
+ * Callbacks de una SesionQuiz, uno por tipo de mensaje del servidor.
+ * Todos tienen implementacion vacia: basta con sobrescribir los que interesen.
+ *
+ * Se ejecutan en el hilo del MultiplexorQuiz, que atiende a todas las sesiones:
+ * no deben bloquear (para trabajo lento, pasarlo a otro hilo).
+ */
+public interface OyenteQuiz {
+
+    // El servidor pide el nombre (solo si no se dio al conectar): llamar a sesion.enviarNombre()
+    default void alPedirNombre(SesionQuiz sesion, String mensaje) { }
+
+    // Servidor lleno: posicion en la cola de sala
+    default void alCola(SesionQuiz sesion, String mensaje) { }
+
+    default void alBienvenida(SesionQuiz sesion, String mensaje) { }
+
+    default void alInicio(SesionQuiz sesion, String mensaje) { }
+
+    // Pregunta nueva (sin respuesta correcta; el tiempo limite viene en la pregunta)
+    default void alPregunta(SesionQuiz sesion, int numero, int total, Pregunta pregunta) { }
+
+    default void alConfirmacion(SesionQuiz sesion, String mensaje) { }
+
+    default void alResultado(SesionQuiz sesion, String mensaje) { }
+
+    default void alRanking(SesionQuiz sesion, String ranking) { }
+
+    default void alNext(SesionQuiz sesion) { }
+
+    default void alInfo(SesionQuiz sesion, String mensaje) { }
+
+    default void alError(SesionQuiz sesion, String mensaje) { }
+
+    default void alFin(SesionQuiz sesion, String rankingFinal) { }
+
+    // Cualquier tipo que no sea de los anteriores
+    default void alOtro(SesionQuiz sesion, String tipo, String mensaje) { }
+
+    // Conexion cerrada (causa == null si fue un cierre normal)
+    default void alDesconectar(SesionQuiz sesion, Throwable causa) { }
+}
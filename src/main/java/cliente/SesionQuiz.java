@@ -0,0 +1,327 @@
+package cliente;
+
+import model.DecodificadorTramas;
+import model.PrecargaPregunta;
+import model.Pregunta;
+import model.ProtocoloHTTP;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Una conexion de jugador dentro de un MultiplexorQuiz.
+ * Se crea con MultiplexorQuiz.conectar(); no tiene hilo propio.
+ *
+ * Los metodos publicos se pueden llamar desde cualquier hilo: las escrituras
+ * se encolan y las hace el hilo del multiplexor.
+ */
+public class SesionQuiz {
+    private final MultiplexorQuiz multiplexor;
+    private final SocketChannel canal;
+    private final OyenteQuiz oyente;
+    private volatile String nombre;
+
+    // null si la conexion va en claro
+    private final CanalTLS tls;
+    private final DecodificadorTramas decodificador = new DecodificadorTramas();
+    private final List<String[]> tramas = new ArrayList<>();
+    // Escrituras pendientes (las vacia el hilo del multiplexor)
+    private final Queue<ByteBuffer> pendientes = new ConcurrentLinkedQueue<>();
+    SelectionKey clave;
+
+    // Respuesta enviada que espera CONFIRMACION o ERROR
+    private CompletableFuture<Duration> respuestaPendiente;
+    private long inicioRespuesta;
+    private final Object lockRespuesta = new Object();
+
+    // Ultima PRECARGA recibida (pregunta cifrada que espera su REVEAL); solo el hilo del multiplexor
+    private String precargaNumero;
+    private String precargaDatos;
+
+    private final CompletableFuture<String> bienvenida = new CompletableFuture<>();
+    private final CompletableFuture<String> fin = new CompletableFuture<>();
+    private volatile boolean cerrada = false;
+    // Desde que se pidio la conexion hasta la BIENVENIDA (-1 mientras no llega)
+    private final long inicio = System.nanoTime();
+    private volatile long duracionEntrada = -1;
+
+    SesionQuiz(MultiplexorQuiz multiplexor, SocketChannel canal, String nombre, OyenteQuiz oyente, CanalTLS tls) {
+        this.multiplexor = multiplexor;
+        this.canal = canal;
+        this.nombre = nombre;
+        this.oyente = oyente;
+        this.tls = tls;
+    }
+
+    // ======================== API ========================
+
+    public String getNombre() { return nombre; }
+
+    public boolean isCerrada() { return cerrada; }
+
+    public boolean isTLS() { return tls != null; }
+
+    // Duracion del handshake TLS (null si no hay TLS o aun no ha terminado)
+    public Duration getHandshakeTLS() {
+        long nanos = tls == null ? -1 : tls.getDuracionHandshake();
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+
+    // Desde la conexion hasta la BIENVENIDA: accept, admision, handshake y nombre (null si no ha llegado)
+    public Duration getTiempoEntrada() {
+        long nanos = duracionEntrada;
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+
+    // Se completa con el mensaje de BIENVENIDA (ya registrado en el servidor)
+    public CompletableFuture<String> bienvenida() { return bienvenida; }
+
+    // Se completa con el ranking final (FIN)
+    public CompletableFuture<String> fin() { return fin; }
+
+    // Enviar el nombre cuando no se dio al conectar (ver OyenteQuiz.alPedirNombre)
+    public void enviarNombre(String nombre) {
+        this.nombre = nombre;
+        enviarNombre();
+    }
+
+    /**
+     * Enviar la respuesta (A/B/C/D). El futuro se completa con la latencia
+     * hasta la CONFIRMACION del servidor, o falla con el mensaje de ERROR.
+     */
+    public CompletableFuture<Duration> responder(char opcion) {
+        CompletableFuture<Duration> futuro = new CompletableFuture<>();
+        synchronized (lockRespuesta) {
+            if (respuestaPendiente != null) {
+                futuro.completeExceptionally(new IllegalStateException("Ya hay una respuesta pendiente"));
+                return futuro;
+            }
+            respuestaPendiente = futuro;
+            inicioRespuesta = System.nanoTime();
+        }
+        enviar("/respuesta", String.valueOf(Character.toUpperCase(opcion)));
+        return futuro;
+    }
+
+    public void cerrar() {
+        multiplexor.ejecutar(() -> alCerrar(null));
+    }
+
+    // ======================== HILO DEL MULTIPLEXOR ========================
+
+    private void enviar(String ruta, String cuerpo) {
+        enviar(ruta, cuerpo, null);
+    }
+
+    private void enviar(String ruta, String cuerpo, String acepta) {
+        pendientes.add(ByteBuffer.wrap(ProtocoloHTTP.codificarPeticion("POST", ruta, cuerpo, acepta)));
+        multiplexor.solicitarEscritura(this);
+    }
+
+    // Con el nombre se anuncia que esta sesion entiende PRECARGA/REVEAL
+    private void enviarNombre() {
+        enviar("/nombre", nombre, ProtocoloHTTP.PRECARGA);
+    }
+
+    // Escribir lo que se pueda sin bloquear; devuelve true si se vacio la cola
+    boolean escribir() throws IOException {
+        if (tls != null) {
+            // El handshake y los datos descifrados avanzan aqui (ver MultiplexorQuiz.atender)
+            boolean vacio = tls.bombear(canal, pendientes);
+            ByteBuffer claro = tls.getClaro();
+            claro.flip();
+            try {
+                entregar(claro);
+            } finally {
+                claro.compact();
+            }
+            return vacio;
+        }
+        ByteBuffer buffer;
+        while ((buffer = pendientes.peek()) != null) {
+            canal.write(buffer);
+            if (buffer.hasRemaining()) {
+                return false;
+            }
+            pendientes.poll();
+        }
+        return true;
+    }
+
+    // Procesar los bytes leidos del canal (con TLS solo se guardan; se descifran al escribir)
+    void leer(ByteBuffer buffer) {
+        if (tls != null) {
+            tls.recibir(buffer);
+            return;
+        }
+        entregar(buffer);
+    }
+
+    private void entregar(ByteBuffer buffer) {
+        decodificador.decodificar(buffer, tramas);
+        for (String[] trama : tramas) {
+            despachar(trama[1], trama[2]);
+        }
+        tramas.clear();
+    }
+
+    private void despachar(String tipo, String cuerpo) {
+        switch (tipo) {
+            case "NOMBRE":
+                if (nombre != null) {
+                    enviarNombre();
+                } else {
+                    oyente.alPedirNombre(this, cuerpo);
+                }
+                break;
+            case "COLA":
+                oyente.alCola(this, cuerpo);
+                break;
+            case "LLENO":
+                oyente.alError(this, cuerpo);
+                break;
+            case "BIENVENIDA":
+                duracionEntrada = System.nanoTime() - inicio;
+                bienvenida.complete(cuerpo);
+                oyente.alBienvenida(this, cuerpo);
+                break;
+            case "INICIO":
+                oyente.alInicio(this, cuerpo);
+                break;
+            case "PREGUNTA":
+                despacharPregunta(cuerpo);
+                break;
+            case "PRECARGA":
+                guardarPrecarga(cuerpo);
+                break;
+            case "REVEAL":
+                revelarPregunta(cuerpo);
+                break;
+            case "CONFIRMACION":
+                completarRespuesta(null);
+                oyente.alConfirmacion(this, cuerpo);
+                break;
+            case "ERROR":
+                completarRespuesta(cuerpo);
+                oyente.alError(this, cuerpo);
+                break;
+            case "RESULTADO":
+                oyente.alResultado(this, cuerpo);
+                break;
+            case "RANKING":
+                oyente.alRanking(this, cuerpo);
+                break;
+            case "NEXT":
+                oyente.alNext(this);
+                break;
+            case "INFO":
+                oyente.alInfo(this, cuerpo);
+                break;
+            case "FIN":
+                fin.complete(cuerpo);
+                oyente.alFin(this, cuerpo);
+                break;
+            default:
+                oyente.alOtro(this, tipo, cuerpo);
+                break;
+        }
+    }
+
+    // Formato: numero|datosCifrados (ver PrecargaPregunta)
+    private void guardarPrecarga(String cuerpo) {
+        int separador = cuerpo.indexOf('|');
+        if (separador < 0) {
+            oyente.alOtro(this, "PRECARGA", cuerpo);
+            return;
+        }
+        precargaNumero = cuerpo.substring(0, separador);
+        precargaDatos = cuerpo.substring(separador + 1);
+    }
+
+    // Formato: numero|clave; descifra la PRECARGA guardada y la trata como una PREGUNTA
+    private void revelarPregunta(String cuerpo) {
+        int separador = cuerpo.indexOf('|');
+        String pregunta = null;
+        if (separador >= 0 && cuerpo.substring(0, separador).equals(precargaNumero)) {
+            pregunta = PrecargaPregunta.descifrar(precargaDatos, cuerpo.substring(separador + 1));
+        }
+        precargaNumero = null;
+        precargaDatos = null;
+        if (pregunta == null) {
+            oyente.alOtro(this, "REVEAL", cuerpo);
+            return;
+        }
+        despacharPregunta(pregunta);
+    }
+
+    // Formato: numPregunta/total|textoPregunta|opA|opB|opC|opD[|segundos]
+    private void despacharPregunta(String cuerpo) {
+        String[] partes = cuerpo.split("\\|");
+        if (partes.length < 6) {
+            oyente.alOtro(this, "PREGUNTA", cuerpo);
+            return;
+        }
+        String[] numInfo = partes[0].split("/");
+        int segundos = Pregunta.TIEMPO_POR_DEFECTO;
+        try {
+            if (partes.length >= 7) segundos = Integer.parseInt(partes[6].trim());
+        } catch (NumberFormatException e) {
+            // se queda el tiempo por defecto
+        }
+        Pregunta pregunta = new Pregunta(partes[1], partes[2], partes[3], partes[4], partes[5], ' ', segundos);
+        oyente.alPregunta(this,
+                Integer.parseInt(numInfo[0].trim()),
+                numInfo.length > 1 ? Integer.parseInt(numInfo[1].trim()) : 0,
+                pregunta);
+    }
+
+    // error == null -> confirmada
+    private void completarRespuesta(String error) {
+        CompletableFuture<Duration> futuro;
+        long inicio;
+        synchronized (lockRespuesta) {
+            futuro = respuestaPendiente;
+            inicio = inicioRespuesta;
+            respuestaPendiente = null;
+        }
+        if (futuro == null) return;
+        if (error == null) {
+            futuro.complete(Duration.ofNanos(System.nanoTime() - inicio));
+        } else {
+            futuro.completeExceptionally(new IllegalStateException(error));
+        }
+    }
+
+    void alCerrar(Throwable causa) {
+        if (cerrada) return;
+        cerrada = true;
+        if (clave != null) {
+            clave.cancel();
+        }
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // ya cerrado
+        }
+        IOException cierre = new IOException("Conexion cerrada", causa);
+        bienvenida.completeExceptionally(cierre);
+        fin.completeExceptionally(cierre);
+        synchronized (lockRespuesta) {
+            if (respuestaPendiente != null) {
+                respuestaPendiente.completeExceptionally(cierre);
+                respuestaPendiente = null;
+            }
+        }
+        oyente.alDesconectar(this, causa);
+    }
+
+    SocketChannel getCanal() { return canal; }
+}
@@ -0,0 +1,30 @@
+package eventos;
+
+import jdk.jfr.*;
+
+import java.net.SocketAddress;
+
+/**
+ * Conexion aceptada en el puerto principal y que hizo con ella ControlAdmision.
+ */
+@Name("quiz.ConexionAceptada")
+@Label("Conexion aceptada")
+@Category("Quiz")
+@StackTrace(false)
+public class EventoConexion extends Event {
+    @Label("Direccion")
+    String direccion;
+
+    @Label("Resultado")
+    @Description("admitida, cola o rechazada")
+    String resultado;
+
+    public static void registrar(SocketAddress direccion, String resultado) {
+        EventoConexion evento = new EventoConexion();
+        if (evento.shouldCommit()) {
+            evento.direccion = String.valueOf(direccion);
+            evento.resultado = resultado;
+            evento.commit();
+        }
+    }
+}
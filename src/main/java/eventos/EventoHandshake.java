@@ -0,0 +1,38 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Alta de un jugador: desde que su manejador empieza (handshake TLS si lo
+ * hay, NOMBRE, POST /nombre) hasta que se le envia BIENVENIDA.
+ */
+@Name("quiz.Handshake")
+@Label("Handshake de jugador")
+@Category("Quiz")
+@StackTrace(false)
+public class EventoHandshake extends Event {
+    @Label("Jugador")
+    String jugador;
+
+    @Label("TLS")
+    boolean tls;
+
+    @Label("Sesion TLS reanudada")
+    boolean reanudada;
+
+    public static EventoHandshake iniciar() {
+        EventoHandshake evento = new EventoHandshake();
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(String jugador, boolean tls, boolean reanudada) {
+        end();
+        if (shouldCommit()) {
+            this.jugador = jugador;
+            this.tls = tls;
+            this.reanudada = reanudada;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Difusion de una pregunta: la duracion es lo que tarda el hilo del juego
+ * en repartirla a todos los jugadores (el envio real va por EjecutorSerie).
+ */
+@Name("quiz.PreguntaDifundida")
+@Label("Pregunta difundida")
+@Category("Quiz")
+public class EventoPregunta extends Event {
+    @Label("Numero")
+    int numero;
+
+    @Label("Total")
+    int total;
+
+    @Label("Jugadores")
+    int jugadores;
+
+    public static EventoPregunta iniciar() {
+        EventoPregunta evento = new EventoPregunta();
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(int numero, int total, int jugadores) {
+        end();
+        if (shouldCommit()) {
+            this.numero = numero;
+            this.total = total;
+            this.jugadores = jugadores;
+            commit();
+        }
+    }
+}
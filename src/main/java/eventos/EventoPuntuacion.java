@@ -0,0 +1,37 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Puntuacion de una ronda (ProcesadorPuntos.puntuar): calculo, aplicar al
+ * ranking y encolar los RESULTADO.
+ */
+@Name("quiz.RondaPuntuada")
+@Label("Ronda puntuada")
+@Category("Quiz")
+public class EventoPuntuacion extends Event {
+    @Label("Jugadores")
+    int jugadores;
+
+    @Label("Aciertos")
+    int aciertos;
+
+    @Label("Calculo en paralelo")
+    boolean paralelo;
+
+    public static EventoPuntuacion iniciar() {
+        EventoPuntuacion evento = new EventoPuntuacion();
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(int jugadores, int aciertos, boolean paralelo) {
+        end();
+        if (shouldCommit()) {
+            this.jugadores = jugadores;
+            this.aciertos = aciertos;
+            this.paralelo = paralelo;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Ranking generado (foto de puntuaciones + ordenacion).
+ */
+@Name("quiz.RankingGenerado")
+@Label("Ranking generado")
+@Category("Quiz")
+public class EventoRanking extends Event {
+    @Label("Jugadores")
+    int jugadores;
+
+    @Label("Entradas devueltas")
+    int entradas;
+
+    public static EventoRanking iniciar() {
+        EventoRanking evento = new EventoRanking();
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(int jugadores, int entradas) {
+        end();
+        if (shouldCommit()) {
+            this.jugadores = jugadores;
+            this.entradas = entradas;
+            commit();
+        }
+    }
+}
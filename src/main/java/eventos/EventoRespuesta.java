@@ -0,0 +1,38 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Respuesta recibida de un jugador (aceptada o rechazada).
+ */
+@Name("quiz.RespuestaRecibida")
+@Label("Respuesta recibida")
+@Category("Quiz")
+@StackTrace(false)
+public class EventoRespuesta extends Event {
+    @Label("Jugador")
+    String jugador;
+
+    @Label("Respuesta")
+    char respuesta;
+
+    @Label("Latencia")
+    @Description("Desde que se envio la pregunta hasta que llego la respuesta")
+    @Timespan(Timespan.MILLISECONDS)
+    long latencia;
+
+    @Label("Error")
+    @Description("Motivo del rechazo (vacio si se acepto)")
+    String error;
+
+    public static void registrar(String jugador, char respuesta, long latenciaMs, String error) {
+        EventoRespuesta evento = new EventoRespuesta();
+        if (evento.shouldCommit()) {
+            evento.jugador = jugador;
+            evento.respuesta = respuesta;
+            evento.latencia = latenciaMs;
+            evento.error = error;
+            evento.commit();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Respuesta escrita a un cliente; la duracion incluye la espera por el
+ * lock del canal y las escrituras bloqueadas por un cliente lento.
+ */
+@Name("quiz.TramaEscrita")
+@Label("Trama escrita")
+@Category({"Quiz", "E/S"})
+@StackTrace(false)
+public class EventoTramaEscrita extends Event {
+    @Label("Tipo")
+    String tipo;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Completa")
+    @Description("false si la conexion se cayo a mitad")
+    boolean completa;
+
+    public static EventoTramaEscrita iniciar() {
+        EventoTramaEscrita evento = new EventoTramaEscrita();
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(String tipo, long bytes, boolean completa) {
+        end();
+        if (shouldCommit()) {
+            this.tipo = tipo;
+            this.bytes = bytes;
+            this.completa = completa;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package eventos;
+
+import jdk.jfr.*;
+
+/**
+ * Peticion leida de un cliente; la duracion va desde su primer byte (no
+ * cuenta el tiempo que la conexion estuvo parada).
+ */
+@Name("quiz.TramaLeida")
+@Label("Trama leida")
+@Category({"Quiz", "E/S"})
+@StackTrace(false)
+public class EventoTramaLeida extends Event {
+    @Label("Ruta")
+    String ruta;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    public static EventoTramaLeida iniciar() {
+        EventoTramaLeida evento = new EventoTramaLeida();
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(String ruta, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.ruta = ruta;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package eventos;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Eventos de Flight Recorder del Quiz (categoria "Quiz").
+ *
+ * Grabar una partida y verla:
+ *   java -XX:StartFlightRecording=filename=quiz.jfr,settings=profile server.ServidorQuiz
+ *   jfr summary quiz.jfr
+ *   jfr print --categories Quiz quiz.jfr
+ * En JDK Mission Control salen en el arbol "Quiz" junto a las pausas de GC y
+ * los locks, asi se ve en que fase de la partida ocurrio cada pausa.
+ *
+ * Con la grabacion apagada cada evento cuesta un par de nanosegundos
+ * (shouldCommit() es false y ni se rellena).
+ */
+public class Eventos {
+
+    private Eventos() {
+    }
+
+    /**
+     * Registrar todos los eventos al arrancar: la primera clase de evento que
+     * se carga inicializa JFR (~0.3 s) y no conviene que sea con la primera
+     * conexion. Ademas asi aparecen en la grabacion aunque no se emitan.
+     */
+    public static void registrar() {
+        FlightRecorder.register(EventoConexion.class);
+        FlightRecorder.register(EventoHandshake.class);
+        FlightRecorder.register(EventoPregunta.class);
+        FlightRecorder.register(EventoRespuesta.class);
+        FlightRecorder.register(EventoPuntuacion.class);
+        FlightRecorder.register(EventoRanking.class);
+        FlightRecorder.register(EventoTramaLeida.class);
+        FlightRecorder.register(EventoTramaEscrita.class);
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * Lectura de parametros de configuracion (servidor y clientes).
+ * Todos se pasan como propiedades de sistema al arrancar, por ejemplo:
+ *   java -Dquiz.auto=true -Dquiz.intermedio=5000 server.ServidorQuiz
+ *
+ * Si la propiedad no existe o no es valida se usa el valor por defecto.
+ */
+public class Configuracion {
+
+    private Configuracion() {
+    }
+
+    public static int entero(String clave, int porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null) return porDefecto;
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("[!] Valor invalido para " + clave + ": " + valor + " (se usa " + porDefecto + ")");
+            return porDefecto;
+        }
+    }
+
+    // Igual, pero fuera de [minimo, maximo] tambien se avisa y se usa el valor por defecto
+    public static int entero(String clave, int porDefecto, int minimo, int maximo) {
+        int valor = entero(clave, porDefecto);
+        if (valor < minimo || valor > maximo) {
+            System.out.println("[!] Valor fuera de rango para " + clave + ": " + valor
+                    + " (entre " + minimo + " y " + maximo + ", se usa " + porDefecto + ")");
+            return porDefecto;
+        }
+        return valor;
+    }
+
+    public static boolean booleano(String clave, boolean porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null) return porDefecto;
+        return valor.trim().equalsIgnoreCase("true");
+    }
+
+    public static String texto(String clave, String porDefecto) {
+        String valor = System.getProperty(clave);
+        return (valor == null || valor.trim().isEmpty()) ? porDefecto : valor.trim();
+    }
+}
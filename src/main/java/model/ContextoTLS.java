@@ -0,0 +1,153 @@
+package model;
+
+import javax.net.ssl.*;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contextos TLS del servidor y de los clientes (transporte opcional, -Dquiz.tls=true).
+ *
+ * Cada lado usa UN solo SSLContext para todas sus conexiones: la cache de
+ * sesiones vive en el contexto, asi un jugador que se reconecta reanuda la
+ * sesion (ticket de TLS 1.3 o id de sesion de TLS 1.2) en vez de repetir el
+ * handshake completo con la firma del certificado.
+ *
+ * Propiedades:
+ *   quiz.tls                 true para activar TLS (por defecto false)
+ *   quiz.tls.almacen         PKCS12 con la clave del servidor (quiz.p12)
+ *   quiz.tls.confianza       PKCS12 con los certificados de confianza del cliente
+ *                            (sin definir: los de la JVM)
+ *   quiz.tls.clave           contrasena de los almacenes (obligatoria para cargar
+ *                            cualquiera de ellos, no hay valor por defecto)
+ *   quiz.tls.sesiones        sesiones guardadas en la cache (20000)
+ *   quiz.tls.sesion.segundos validez de una sesion para reanudar (3600)
+ *
+ * Certificado autofirmado para pruebas en local:
+ *   keytool -genkeypair -alias quiz -keyalg EC -groupname secp256r1 -validity 365
+ *           -dname "CN=localhost" -ext SAN=dns:localhost,ip:127.0.0.1
+ *           -storetype PKCS12 -keystore quiz.p12 -storepass cambiame
+ *   keytool -exportcert -alias quiz -keystore quiz.p12 -storepass cambiame -file quiz.crt
+ *   keytool -importcert -noprompt -alias quiz -file quiz.crt
+ *           -storetype PKCS12 -keystore confianza.p12 -storepass cambiame
+ * Servidor: java -Dquiz.tls=true -Dquiz.tls.almacen=quiz.p12 -Dquiz.tls.clave=cambiame server.ServidorQuiz
+ * Cliente:  java -Dquiz.tls=true -Dquiz.tls.confianza=confianza.p12 -Dquiz.tls.clave=cambiame cliente.ClienteQuiz
+ */
+public class ContextoTLS {
+    private static final int SESIONES = Configuracion.entero("quiz.tls.sesiones", 20000, 1, 1_000_000);
+    private static final int SESION_SEGUNDOS = Configuracion.entero("quiz.tls.sesion.segundos", 3600, 1, 86400);
+
+    private static SSLContext servidor;
+    private static SSLContext cliente;
+    // Ids de las sesiones ya vistas por el servidor, las mas antiguas salen primero
+    private static final Map<String, Boolean> idsVistos = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> mayor) {
+            return size() > SESIONES;
+        }
+    };
+
+    private ContextoTLS() {
+    }
+
+    public static boolean activo() {
+        return Configuracion.booleano("quiz.tls", false);
+    }
+
+    // Contexto del servidor con su certificado (se crea una vez)
+    public static synchronized SSLContext servidor() throws IOException {
+        if (servidor == null) {
+            try {
+                KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                kmf.init(cargarAlmacen(Configuracion.texto("quiz.tls.almacen", "quiz.p12")), clave());
+                SSLContext contexto = SSLContext.getInstance("TLS");
+                contexto.init(kmf.getKeyManagers(), null, null);
+                configurarCache(contexto.getServerSessionContext());
+                servidor = contexto;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("No se pudo preparar TLS: " + e.getMessage(), e);
+            }
+        }
+        return servidor;
+    }
+
+    // Contexto de los clientes (ClienteQuiz, GeneradorCarga, FTP con AUTH TLS)
+    public static synchronized SSLContext cliente() throws IOException {
+        if (cliente == null) {
+            try {
+                TrustManager[] confianza = null;
+                String almacen = Configuracion.texto("quiz.tls.confianza", null);
+                if (almacen != null) {
+                    TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                    tmf.init(cargarAlmacen(almacen));
+                    confianza = tmf.getTrustManagers();
+                }
+                SSLContext contexto = SSLContext.getInstance("TLS");
+                contexto.init(null, confianza, null);
+                configurarCache(contexto.getClientSessionContext());
+                cliente = contexto;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("No se pudo preparar TLS: " + e.getMessage(), e);
+            }
+        }
+        return cliente;
+    }
+
+    // Comprobar que el certificado es del host (sin esto vale cualquier certificado de confianza)
+    public static void verificarHost(SSLEngine motor) {
+        SSLParameters parametros = motor.getSSLParameters();
+        parametros.setEndpointIdentificationAlgorithm("HTTPS");
+        motor.setSSLParameters(parametros);
+    }
+
+    public static void verificarHost(SSLSocket socket) {
+        SSLParameters parametros = socket.getSSLParameters();
+        parametros.setEndpointIdentificationAlgorithm("HTTPS");
+        socket.setSSLParameters(parametros);
+    }
+
+    /**
+     * Si la sesion del servidor recien negociada es reanudada (inicioMs: antes del handshake).
+     *   - TLS 1.2 (y caches con estado) reanudan con el mismo id: se mira si ya se vio
+     *   - TLS 1.3 con tickets da un id nuevo a cada conexion, pero la sesion conserva
+     *     la fecha de creacion de la original, que es de una conexion anterior
+     */
+    public static boolean sesionReanudada(SSLSession sesion, long inicioMs) {
+        byte[] id = sesion.getId();
+        if (id != null && id.length > 0) {
+            synchronized (idsVistos) {
+                if (idsVistos.put(HexFormat.of().formatHex(id), Boolean.TRUE) != null) {
+                    return true;
+                }
+            }
+        }
+        return sesion.getCreationTime() < inicioMs;
+    }
+
+    private static void configurarCache(SSLSessionContext sesiones) {
+        sesiones.setSessionCacheSize(SESIONES);
+        sesiones.setSessionTimeout(SESION_SEGUNDOS);
+    }
+
+    private static KeyStore cargarAlmacen(String ruta) throws IOException, GeneralSecurityException {
+        KeyStore almacen = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(ruta)) {
+            almacen.load(in, clave());
+        }
+        return almacen;
+    }
+
+    // Contrasena de los almacenes: sin valor por defecto, con TLS hay que darla
+    private static char[] clave() throws IOException {
+        String clave = Configuracion.texto("quiz.tls.clave", null);
+        if (clave == null) {
+            throw new IOException("Falta la contrasena de los almacenes TLS (-Dquiz.tls.clave=...)");
+        }
+        return clave.toCharArray();
+    }
+}
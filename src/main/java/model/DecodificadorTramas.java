@@ -0,0 +1,86 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Version incremental de ProtocoloHTTP.leerRespuesta para sockets no bloqueantes.
+ * Se le pasan los bytes segun llegan y devuelve las respuestas completas
+ * con el mismo formato: [codigo, tipo, cuerpo].
+ */
+public class DecodificadorTramas {
+    // Limite de una linea para no crecer sin fin con un servidor roto
+    private static final int MAX_LINEA = 64 * 1024;
+
+    private enum Estado { LINEA_ESTADO, CABECERAS, CUERPO }
+
+    private final ByteArrayOutputStream linea = new ByteArrayOutputStream(128);
+    private Estado estado = Estado.LINEA_ESTADO;
+    private String codigo;
+    private String tipo;
+    private int contentLength;
+
+    /**
+     * Consumir todos los bytes disponibles del buffer y anadir a "tramas"
+     * las respuestas que se hayan completado.
+     */
+    public void decodificar(ByteBuffer buffer, List<String[]> tramas) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b != '\n') {
+                if (linea.size() >= MAX_LINEA) {
+                    throw new IllegalStateException("Linea demasiado larga");
+                }
+                linea.write(b);
+                continue;
+            }
+            procesarLinea(leerLinea(), tramas);
+        }
+    }
+
+    private String leerLinea() {
+        byte[] bytes = linea.toByteArray();
+        linea.reset();
+        int fin = (bytes.length > 0 && bytes[bytes.length - 1] == '\r') ? bytes.length - 1 : bytes.length;
+        return new String(bytes, 0, fin, StandardCharsets.UTF_8);
+    }
+
+    private void procesarLinea(String texto, List<String[]> tramas) {
+        switch (estado) {
+            case LINEA_ESTADO:
+                // "HTTP/1.0 200 OK"
+                String[] partesEstado = texto.split(" ");
+                codigo = partesEstado.length > 1 ? partesEstado[1] : "0";
+                tipo = "";
+                contentLength = 0;
+                estado = Estado.CABECERAS;
+                break;
+
+            case CABECERAS:
+                if (texto.isEmpty()) {
+                    if (contentLength > 0) {
+                        estado = Estado.CUERPO;
+                    } else {
+                        tramas.add(new String[]{codigo, tipo, ""});
+                        estado = Estado.LINEA_ESTADO;
+                    }
+                } else if (texto.startsWith("Type:")) {
+                    tipo = texto.split(":")[1].trim();
+                } else if (texto.startsWith("Content-Length:")) {
+                    try {
+                        contentLength = Integer.parseInt(texto.split(":")[1].trim());
+                    } catch (NumberFormatException e) {
+                        contentLength = 0;
+                    }
+                }
+                break;
+
+            case CUERPO:
+                tramas.add(new String[]{codigo, tipo, texto});
+                estado = Estado.LINEA_ESTADO;
+                break;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package model;
+
+import eventos.EventoTramaLeida;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lector de peticiones sobre un canal bloqueante, sin buffer propio.
+ *
+ * Mientras la conexion esta parada se bloquea leyendo un solo byte; cuando
+ * llega, toma un buffer de PoolBuffers para el resto de la trama y lo
+ * devuelve en cuanto no quedan bytes pendientes. Sustituye al
+ * BufferedReader + InputStreamReader (8K chars y un decodificador) que
+ * cada conexion tenia durante toda su vida.
+ *
+ * El objetivo de unos cientos de bytes por conexion parada NO se cumple:
+ * con 6000 conexiones en la sala (histograma tras GC completo) cada una
+ * ocupa ~1.6 KB de heap. La E/S ya es poca (este lector y su byte directo,
+ * ~200 B); el resto es el hilo del manejador bloqueado aqui (~420 B de
+ * Thread y Worker del pool, mas su pila fuera del heap), el socket (~500 B)
+ * y el estado del jugador. Soltar el hilo pide un selector como en
+ * ServidorEventos, pero el canal es el mismo que usan las escrituras del
+ * juego (EjecutorSerie), que son bloqueantes: haria falta una cola de
+ * salida por conexion. Y aun asi quedaria ~1 KB del socket y el jugador.
+ *
+ * No es thread-safe: lo usa solo el hilo del manejador.
+ */
+public class LectorTramas {
+    private final ReadableByteChannel canal;
+    // Primer byte de cada trama (directo: leer a un buffer del heap usa la cache del hilo)
+    private final ByteBuffer primero = ByteBuffer.allocateDirect(1);
+    // null mientras no hay trama a medias; en modo lectura (position..limit pendiente)
+    private ByteBuffer buffer;
+    // Bytes consumidos de la trama en curso (para EventoTramaLeida)
+    private long consumidos;
+
+    public LectorTramas(ReadableByteChannel canal) {
+        this.canal = canal;
+    }
+
+    // Leer peticion y devolver array: [metodo, ruta, cuerpo, acepta] (null si se cerro la conexion)
+    public String[] leerPeticion() throws IOException {
+        if (buffer == null) {
+            primero.clear();
+            if (canal.read(primero) == -1) return null;
+            buffer = PoolBuffers.tomar();
+            buffer.put(primero.get(0));
+            buffer.flip();
+        }
+        EventoTramaLeida evento = EventoTramaLeida.iniciar();
+        consumidos = 0;
+        try {
+            String[] peticion = ProtocoloHTTP.leerPeticion(this::leerLinea);
+            evento.terminar(peticion == null ? null : peticion[1], consumidos);
+            return peticion;
+        } finally {
+            // Si el cliente ya envio la siguiente trama, el buffer se queda
+            if (buffer != null && !buffer.hasRemaining()) {
+                soltar();
+            }
+        }
+    }
+
+    // Devolver el buffer al pool (al cerrar la conexion)
+    public void soltar() {
+        PoolBuffers.devolver(buffer);
+        buffer = null;
+    }
+
+    // Linea sin el salto (\n o \r\n), o null al final del stream
+    private String leerLinea() throws IOException {
+        if (buffer == null) return null;
+        while (true) {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    int longitud = i - buffer.position();
+                    String linea = decodificar(longitud > 0 && buffer.get(i - 1) == '\r' ? longitud - 1 : longitud);
+                    consumidos += i + 1 - buffer.position();
+                    buffer.position(i + 1);
+                    return linea;
+                }
+            }
+            // Falta el salto de linea: compactar y leer mas
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                throw new IOException("Linea demasiado larga (max " + buffer.capacity() + " bytes)");
+            }
+            int leidos = canal.read(buffer);
+            buffer.flip();
+            if (leidos == -1) {
+                if (!buffer.hasRemaining()) return null;
+                consumidos += buffer.remaining();
+                return decodificar(buffer.remaining());
+            }
+        }
+    }
+
+    // Decodificar los siguientes bytes (avanza la posicion)
+    private String decodificar(int longitud) {
+        byte[] bytes = new byte[longitud];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
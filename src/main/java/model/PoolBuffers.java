@@ -0,0 +1,54 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool compartido de buffers directos para las conexiones.
+ *
+ * Una conexion solo tiene buffer mientras esta leyendo o escribiendo una
+ * trama; en la sala de espera (o entre respuestas) no tiene ninguno. El pool
+ * guarda como mucho MAX_LIBRES buffers: si muchas conexiones los piden a la
+ * vez se crean buffers nuevos y los que sobran al devolverlos se dejan al
+ * recolector, asi el pool encoge solo despues de un pico.
+ *
+ * Son directos para que el canal no copie a su cache de buffers temporales
+ * (un ByteBuffer[1024] y un buffer directo por cada hilo que hace E/S).
+ */
+public class PoolBuffers {
+    // Tamano de cada buffer: una trama entera del protocolo cabe de sobra
+    public static final int TAM_BUFFER = 8 * 1024;
+    // Buffers libres que se guardan para reutilizar
+    private static final int MAX_LIBRES = 256;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> libres = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger numLibres = new AtomicInteger();
+    // Buffers creados desde el arranque (para ver si el pool se queda corto)
+    private static final AtomicInteger creados = new AtomicInteger();
+
+    // Buffer vacio listo para escribir en el
+    public static ByteBuffer tomar() {
+        ByteBuffer buffer = libres.poll();
+        if (buffer != null) {
+            numLibres.decrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+        creados.incrementAndGet();
+        return ByteBuffer.allocateDirect(TAM_BUFFER);
+    }
+
+    public static void devolver(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != TAM_BUFFER) return;
+        if (numLibres.incrementAndGet() <= MAX_LIBRES) {
+            libres.add(buffer);
+        } else {
+            numLibres.decrementAndGet();
+        }
+    }
+
+    public static int getLibres() { return numLibres.get(); }
+
+    public static int getCreados() { return creados.get(); }
+}
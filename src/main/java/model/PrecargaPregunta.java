@@ -0,0 +1,89 @@
+package model;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Pregunta enviada por adelantado y cifrada con una clave de un solo uso.
+ *
+ * Durante el ranking de la ronda anterior el servidor manda la siguiente
+ * pregunta cifrada (PRECARGA) y al empezar la ronda solo manda la clave
+ * (REVEAL, unos 40 bytes). Asi el arranque de la ronda no depende de lo
+ * larga que sea la pregunta ni de cuantos jugadores haya.
+ *
+ * Tramas (Type):
+ *   PRECARGA  numero|base64(iv + AES-GCM(cuerpo PREGUNTA))
+ *   REVEAL    numero|base64(clave)
+ * El cuerpo descifrado tiene el mismo formato que PREGUNTA.
+ */
+public class PrecargaPregunta {
+    private static final String ALGORITMO = "AES/GCM/NoPadding";
+    private static final int BYTES_CLAVE = 16;
+    private static final int BYTES_IV = 12;
+    private static final int BITS_TAG = 128;
+    private static final SecureRandom aleatorio = new SecureRandom();
+
+    private final int numero;
+    private final String datos;
+    private final String clave;
+
+    private PrecargaPregunta(int numero, String datos, String clave) {
+        this.numero = numero;
+        this.datos = datos;
+        this.clave = clave;
+    }
+
+    // Cifrar el cuerpo PREGUNTA de la ronda "numero" con una clave nueva
+    public static PrecargaPregunta cifrar(int numero, String cuerpoPregunta) {
+        byte[] clave = new byte[BYTES_CLAVE];
+        byte[] iv = new byte[BYTES_IV];
+        aleatorio.nextBytes(clave);
+        aleatorio.nextBytes(iv);
+        try {
+            Cipher cifrador = Cipher.getInstance(ALGORITMO);
+            cifrador.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(clave, "AES"), new GCMParameterSpec(BITS_TAG, iv));
+            byte[] cifrado = cifrador.doFinal(cuerpoPregunta.getBytes(StandardCharsets.UTF_8));
+            byte[] datos = Arrays.copyOf(iv, BYTES_IV + cifrado.length);
+            System.arraycopy(cifrado, 0, datos, BYTES_IV, cifrado.length);
+            Base64.Encoder base64 = Base64.getEncoder();
+            return new PrecargaPregunta(numero, base64.encodeToString(datos), base64.encodeToString(clave));
+        } catch (GeneralSecurityException e) {
+            // AES-GCM esta en todas las JVM
+            throw new IllegalStateException("No se pudo cifrar la pregunta", e);
+        }
+    }
+
+    /**
+     * Descifrar los datos de una PRECARGA con la clave del REVEAL.
+     * Devuelve el cuerpo PREGUNTA, o null si la clave no corresponde o los datos estan mal.
+     */
+    public static String descifrar(String datos, String clave) {
+        try {
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] bytes = base64.decode(datos);
+            Cipher cifrador = Cipher.getInstance(ALGORITMO);
+            cifrador.init(Cipher.DECRYPT_MODE, new SecretKeySpec(base64.decode(clave), "AES"),
+                    new GCMParameterSpec(BITS_TAG, bytes, 0, BYTES_IV));
+            byte[] claro = cifrador.doFinal(bytes, BYTES_IV, bytes.length - BYTES_IV);
+            return new String(claro, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public int getNumero() { return numero; }
+
+    public String cuerpoPrecarga() {
+        return numero + "|" + datos;
+    }
+
+    public String cuerpoReveal() {
+        return numero + "|" + clave;
+    }
+}
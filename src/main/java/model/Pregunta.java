@@ -7,14 +7,27 @@ public class Pregunta {
     private String opcionC;
     private String opcionD;
     private char respuestaCorrecta; // 'A', 'B', 'C' o 'D'
+    // Tiempo limite para responder (segundos), columna "Time Limit (sec)" de Blooket
+    private int tiempoLimite;
+
+    // Limites que admite la plantilla de Blooket
+    public static final int TIEMPO_POR_DEFECTO = 15;
+    public static final int TIEMPO_MINIMO = 5;
+    public static final int TIEMPO_MAXIMO = 300;
 
     public Pregunta(String texto, String opcionA, String opcionB, String opcionC, String opcionD, char respuestaCorrecta) {
+        this(texto, opcionA, opcionB, opcionC, opcionD, respuestaCorrecta, TIEMPO_POR_DEFECTO);
+    }
+
+    public Pregunta(String texto, String opcionA, String opcionB, String opcionC, String opcionD,
+                    char respuestaCorrecta, int tiempoLimite) {
         this.texto = texto;
         this.opcionA = opcionA;
         this.opcionB = opcionB;
         this.opcionC = opcionC;
         this.opcionD = opcionD;
         this.respuestaCorrecta = Character.toUpperCase(respuestaCorrecta);
+        this.tiempoLimite = Math.max(TIEMPO_MINIMO, Math.min(TIEMPO_MAXIMO, tiempoLimite));
     }
 
     public String getTexto() { return texto; }
@@ -23,6 +36,8 @@ public class Pregunta {
     public String getOpcionC() { return opcionC; }
     public String getOpcionD() { return opcionD; }
     public char getRespuestaCorrecta() { return respuestaCorrecta; }
+    public int getTiempoLimite() { return tiempoLimite; }
+    public long getTiempoLimiteMs() { return tiempoLimite * 1000L; }
 
     // Formato para enviar por HTTP: texto|opA|opB|opC|opD
     public String toMensaje() {
@@ -38,9 +53,47 @@ public class Pregunta {
         return null;
     }
 
-    // Parsear una linea CSV: pregunta,opA,opB,opC,opD,respuesta
+    // Formato completo (entre servidores, incluye la solucion): texto|opA|opB|opC|opD|correcta|segundos
+    public String toMensajeCompleto() {
+        return toMensaje() + "|" + respuestaCorrecta + "|" + tiempoLimite;
+    }
+
+    public static Pregunta fromMensajeCompleto(String mensaje) {
+        String[] partes = mensaje.split("\\|");
+        if (partes.length >= 7 && !partes[5].isEmpty()) {
+            try {
+                return new Pregunta(partes[0], partes[1], partes[2], partes[3], partes[4],
+                        partes[5].charAt(0), Integer.parseInt(partes[6]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // Parsear una linea CSV. Admite dos formatos:
+    //   pregunta,opA,opB,opC,opD,respuesta[,tiempo]
+    //   Blooket: numero,pregunta,op1,op2,op3,op4,tiempo,numeroCorrecta
     public static Pregunta fromCSV(String lineaCSV) {
         String[] partes = lineaCSV.split(",");
+        if (partes.length >= 8) {
+            return fromBlooket(partes);
+        }
+        if (partes.length == 7) {
+            try {
+                return new Pregunta(
+                        partes[0].trim(),
+                        partes[1].trim(),
+                        partes[2].trim(),
+                        partes[3].trim(),
+                        partes[4].trim(),
+                        partes[5].trim().charAt(0),
+                        Integer.parseInt(partes[6].trim())
+                );
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
         if (partes.length >= 6) {
             return new Pregunta(
                     partes[0].trim(),
@@ -53,4 +106,27 @@ public class Pregunta {
         }
         return null;
     }
+
+    // Fila de la plantilla de Blooket. La cabecera ("Question #,...") no tiene
+    // numeros en tiempo/correcta y se descarta devolviendo null
+    private static Pregunta fromBlooket(String[] partes) {
+        try {
+            int tiempo = Integer.parseInt(partes[6].trim());
+            String correcta = partes[7].trim();
+            if (correcta.isEmpty() || correcta.charAt(0) < '1' || correcta.charAt(0) > '4') {
+                return null;
+            }
+            return new Pregunta(
+                    partes[1].trim(),
+                    partes[2].trim(),
+                    partes[3].trim(),
+                    partes[4].trim(),
+                    partes[5].trim(),
+                    (char) ('A' + (correcta.charAt(0) - '1')),
+                    tiempo
+            );
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -1,16 +1,26 @@
 package model;
 
+import eventos.EventoTramaEscrita;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Clase auxiliar para construir y leer peticiones/respuestas HTTP manualmente.
  *
  * Formato de PETICION (Cliente -> Servidor):
  *   POST /ruta HTTP/1.0
+ *   Acepta: PRECARGA           <- opcional, en POST /nombre: tipos de respuesta
+ *                                 extra que entiende el cliente
  *   Content-Length: N
  *                              <- linea vacia separadora
  *   cuerpo_del_mensaje
  *
+ * Sin "Acepta: PRECARGA" el servidor envia cada pregunta entera (PREGUNTA),
+ * como a los clientes anteriores a PRECARGA/REVEAL.
+ *
  * Formato de RESPUESTA (Servidor -> Cliente):
  *   HTTP/1.0 200 OK
  *   Type: PREGUNTA
@@ -19,43 +29,154 @@ import java.io.*;
  *   cuerpo_del_mensaje
  */
 public class ProtocoloHTTP {
+    // Capacidad de "Acepta:": pregunta cifrada por adelantado (PRECARGA) y clave al empezar (REVEAL)
+    public static final String PRECARGA = "PRECARGA";
 
     // ======================== ENVIAR ========================
 
     // Enviar peticion HTTP (cliente -> servidor)
     public static void enviarPeticion(PrintWriter salida, String metodo, String ruta, String cuerpo) {
-        salida.println(metodo + " " + ruta + " HTTP/1.0");
+        synchronized (salida) {
+            salida.println(metodo + " " + ruta + " HTTP/1.0");
+            if (cuerpo != null && !cuerpo.isEmpty()) {
+                salida.println("Content-Length: " + cuerpo.length());
+                salida.println(""); // linea vacia separadora
+                salida.println(cuerpo);
+            } else {
+                salida.println("Content-Length: 0");
+                salida.println(""); // linea vacia separadora
+            }
+            salida.flush();
+        }
+    }
+
+    // Codificar una peticion ya lista para escribir en un canal no bloqueante (mismo formato)
+    public static byte[] codificarPeticion(String metodo, String ruta, String cuerpo) {
+        return codificarPeticion(metodo, ruta, cuerpo, null);
+    }
+
+    // Igual, anunciando los tipos de respuesta extra que entiende el cliente (cabecera Acepta)
+    public static byte[] codificarPeticion(String metodo, String ruta, String cuerpo, String acepta) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(metodo).append(' ').append(ruta).append(" HTTP/1.0\n");
+        if (acepta != null) {
+            sb.append("Acepta: ").append(acepta).append('\n');
+        }
         if (cuerpo != null && !cuerpo.isEmpty()) {
-            salida.println("Content-Length: " + cuerpo.length());
-            salida.println(""); // linea vacia separadora
-            salida.println(cuerpo);
+            sb.append("Content-Length: ").append(cuerpo.length()).append('\n');
+            sb.append('\n');
+            sb.append(cuerpo).append('\n');
         } else {
-            salida.println("Content-Length: 0");
-            salida.println(""); // linea vacia separadora
+            sb.append("Content-Length: 0\n");
+            sb.append('\n');
         }
-        salida.flush();
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
     }
 
-    // Enviar respuesta HTTP (servidor -> cliente)
-    public static void enviarRespuesta(PrintWriter salida, int codigo, String tipo, String cuerpo) {
-        String razon = (codigo == 200) ? "OK" : (codigo == 400) ? "Bad Request" : "Error";
-        salida.println("HTTP/1.0 " + codigo + " " + razon);
-        salida.println("Type: " + tipo);
+    // Enviar respuesta HTTP (servidor -> cliente) por un canal bloqueante, sin buffer propio:
+    // la trama pasa por un buffer de PoolBuffers solo mientras se escribe.
+    // Devuelve false si la conexion esta caida (como PrintWriter, no lanza excepciones).
+    public static boolean enviarRespuesta(WritableByteChannel salida, int codigo, String tipo, String cuerpo) {
+        EventoTramaEscrita evento = EventoTramaEscrita.iniciar();
+        byte[] trama = codificarRespuesta(codigo, tipo, cuerpo);
+        ByteBuffer buffer = PoolBuffers.tomar();
+        boolean completa = false;
+        try {
+            synchronized (salida) {
+                for (int enviados = 0; enviados < trama.length; ) {
+                    int n = Math.min(buffer.capacity(), trama.length - enviados);
+                    buffer.clear();
+                    buffer.put(trama, enviados, n);
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        salida.write(buffer);
+                    }
+                    enviados += n;
+                }
+            }
+            completa = true;
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            PoolBuffers.devolver(buffer);
+            evento.terminar(tipo, trama.length, completa);
+        }
+    }
+
+    // Enviar una respuesta corta por un canal NO bloqueante con una sola escritura.
+    // Devuelve false si la conexion esta caida o la trama no cabe entera (el otro lado no lee).
+    public static boolean intentarEnviarRespuesta(WritableByteChannel salida, int codigo, String tipo, String cuerpo) {
+        EventoTramaEscrita evento = EventoTramaEscrita.iniciar();
+        ByteBuffer trama = ByteBuffer.wrap(codificarRespuesta(codigo, tipo, cuerpo));
+        try {
+            salida.write(trama);
+        } catch (IOException e) {
+            // caida: la trama queda sin enviar
+        } finally {
+            evento.terminar(tipo, trama.position(), !trama.hasRemaining());
+        }
+        return !trama.hasRemaining();
+    }
+
+    // Codificar una respuesta (mismo formato que enviarRespuesta con PrintWriter)
+    public static byte[] codificarRespuesta(int codigo, String tipo, String cuerpo) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("HTTP/1.0 ").append(codigo).append(' ').append(razon(codigo)).append('\n');
+        sb.append("Type: ").append(tipo).append('\n');
         if (cuerpo != null && !cuerpo.isEmpty()) {
-            salida.println("Content-Length: " + cuerpo.length());
-            salida.println(""); // linea vacia separadora
-            salida.println(cuerpo);
+            sb.append("Content-Length: ").append(cuerpo.length()).append('\n');
+            sb.append('\n');
+            sb.append(cuerpo).append('\n');
         } else {
-            salida.println("Content-Length: 0");
-            salida.println(""); // linea vacia separadora
+            sb.append("Content-Length: 0\n");
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Enviar respuesta HTTP (servidor -> cliente)
+    // (el juego y el hilo del manejador escriben en la misma salida: una trama cada vez)
+    public static void enviarRespuesta(PrintWriter salida, int codigo, String tipo, String cuerpo) {
+        String razon = razon(codigo);
+        synchronized (salida) {
+            salida.println("HTTP/1.0 " + codigo + " " + razon);
+            salida.println("Type: " + tipo);
+            if (cuerpo != null && !cuerpo.isEmpty()) {
+                salida.println("Content-Length: " + cuerpo.length());
+                salida.println(""); // linea vacia separadora
+                salida.println(cuerpo);
+            } else {
+                salida.println("Content-Length: 0");
+                salida.println(""); // linea vacia separadora
+            }
+            salida.flush();
+        }
+    }
+
+    private static String razon(int codigo) {
+        switch (codigo) {
+            case 200: return "OK";
+            case 400: return "Bad Request";
+            case 429: return "Too Many Requests";
+            case 503: return "Service Unavailable";
+            default: return "Error";
         }
-        salida.flush();
     }
 
     // ======================== RECIBIR ========================
 
-    // Leer peticion HTTP y devolver array: [metodo, ruta, cuerpo]
+    // Origen de lineas: BufferedReader o LectorTramas (bytes del socket con buffer del pool)
+    interface LectorLineas {
+        String readLine() throws IOException;
+    }
+
+    // Leer peticion HTTP y devolver array: [metodo, ruta, cuerpo, acepta] (acepta "" si no viene)
     public static String[] leerPeticion(BufferedReader entrada) throws IOException {
+        return leerPeticion(entrada::readLine);
+    }
+
+    static String[] leerPeticion(LectorLineas entrada) throws IOException {
         // Linea 1: "POST /ruta HTTP/1.0"
         String lineaPeticion = entrada.readLine();
         if (lineaPeticion == null) return null;
@@ -66,6 +187,7 @@ public class ProtocoloHTTP {
 
         // Leer headers hasta linea vacia
         int contentLength = 0;
+        String acepta = "";
         String linea;
         while ((linea = entrada.readLine()) != null && !linea.isEmpty()) {
             if (linea.startsWith("Content-Length:")) {
@@ -74,6 +196,8 @@ public class ProtocoloHTTP {
                 } catch (NumberFormatException e) {
                     contentLength = 0;
                 }
+            } else if (linea.startsWith("Acepta:")) {
+                acepta = linea.substring("Acepta:".length()).trim();
             }
         }
 
@@ -84,7 +208,16 @@ public class ProtocoloHTTP {
             if (cuerpo == null) cuerpo = "";
         }
 
-        return new String[]{metodo, ruta, cuerpo};
+        return new String[]{metodo, ruta, cuerpo, acepta};
+    }
+
+    // Si la peticion anuncia que el cliente entiende ese tipo de respuesta ("Acepta: A, B")
+    public static boolean acepta(String[] peticion, String tipo) {
+        if (peticion.length < 4) return false;
+        for (String capacidad : peticion[3].split(",")) {
+            if (capacidad.trim().equals(tipo)) return true;
+        }
+        return false;
     }
 
     // Leer respuesta HTTP y devolver array: [codigo, tipo, cuerpo]
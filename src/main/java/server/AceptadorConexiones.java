@@ -0,0 +1,202 @@
+package server;
+
+import model.Configuracion;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aceptacion de conexiones del puerto principal.
+ *
+ * Al empezar una partida entra toda la sala en pocos segundos. Con un solo
+ * hilo y el backlog por defecto (50) las conexiones que no cabian en la cola
+ * del kernel esperaban a que el cliente repitiera el SYN (1 s, 3 s...) o se
+ * perdian.
+ *
+ * - Backlog configurable (el kernel lo recorta a net.core.somaxconn).
+ * - Varios hilos aceptando. Con SO_REUSEPORT cada hilo tiene su propio socket
+ *   en el mismo puerto y el kernel reparte las conexiones entre ellos; si el
+ *   sistema no lo tiene, todos aceptan del mismo socket.
+ * - Los hilos de aceptar solo aceptan: la admision va en el hilo "admision"
+ *   y el handshake en el manejador. Entre ellos hay una cola acotada; si se
+ *   llena los hilos de aceptar esperan y las conexiones se quedan en el
+ *   backlog del kernel en vez de acumularse sin limite en el proceso.
+ * - Se mide la espera de cada conexion desde que accept() la devuelve hasta
+ *   que arranca su manejador (registrarEspera). Es el tiempo dentro del
+ *   servidor (cola de admision y pool); el que paso antes en el backlog del
+ *   kernel no se ve desde aqui.
+ *
+ * SO_REUSEPORT va desactivado por defecto: con el, otro proceso del mismo
+ * usuario puede abrir el mismo puerto y repartirse las conexiones con este.
+ *
+ * Propiedades:
+ *   quiz.aceptar.backlog     conexiones pendientes en el kernel por socket (1024)
+ *   quiz.aceptar.hilos       hilos aceptando (2)
+ *   quiz.aceptar.pendientes  conexiones aceptadas esperando al hilo de admision (256)
+ *   quiz.aceptar.reuseport   un socket por hilo con SO_REUSEPORT si se puede (false)
+ */
+public class AceptadorConexiones {
+    private static final int BACKLOG = Configuracion.entero("quiz.aceptar.backlog", 1024);
+    private static final int HILOS = Math.max(1, Configuracion.entero("quiz.aceptar.hilos", 2));
+    private static final int PENDIENTES = Math.max(1, Configuracion.entero("quiz.aceptar.pendientes", 256));
+    private static final boolean REUSEPORT = Configuracion.booleano("quiz.aceptar.reuseport", false);
+
+    // Espera entre accept() y el arranque del manejador (todo el servidor)
+    private static final AtomicLong esperas = new AtomicLong();
+    private static final AtomicLong esperaTotal = new AtomicLong();
+    private static final AtomicLong esperaMax = new AtomicLong();
+
+    private final int puerto;
+    // Ritmo de aceptar (null = sin limite, solo frena la cola de admision)
+    private final LimitadorTokens limitador;
+    private final ControlAdmision admision;
+    private final List<ServerSocketChannel> sockets = new ArrayList<>();
+    // Conexiones aceptadas por cada hilo
+    private final AtomicLongArray aceptadas = new AtomicLongArray(HILOS);
+    // Un solo hilo de admision: las conexiones se admiten en el orden en que se aceptaron
+    private final BlockingQueue<Aceptada> pendientes = new ArrayBlockingQueue<>(PENDIENTES);
+    private Thread hiloAdmision;
+    private volatile boolean cerrado = false;
+
+    // Conexion aceptada esperando al hilo de admision
+    private static class Aceptada {
+        final SocketChannel socket;
+        final long nanos;
+
+        Aceptada(SocketChannel socket, long nanos) {
+            this.socket = socket;
+            this.nanos = nanos;
+        }
+    }
+
+    public AceptadorConexiones(int puerto, LimitadorTokens limitador, ControlAdmision admision) {
+        this.puerto = puerto;
+        this.limitador = limitador;
+        this.admision = admision;
+    }
+
+    // Abrir el puerto y arrancar los hilos de aceptar
+    public void iniciar() throws IOException {
+        try {
+            if (HILOS > 1 && REUSEPORT && admiteReusePort()) {
+                for (int i = 0; i < HILOS; i++) {
+                    ServerSocketChannel socket = ServerSocketChannel.open();
+                    sockets.add(socket);
+                    socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                    socket.bind(new InetSocketAddress(puerto), BACKLOG);
+                }
+            } else {
+                ServerSocketChannel socket = ServerSocketChannel.open();
+                sockets.add(socket);
+                socket.bind(new InetSocketAddress(puerto), BACKLOG);
+            }
+        } catch (IOException e) {
+            cerrar();
+            throw e;
+        }
+
+        hiloAdmision = new Thread(this::admitir, "admision");
+        hiloAdmision.setDaemon(true);
+        hiloAdmision.start();
+        for (int i = 0; i < HILOS; i++) {
+            ServerSocketChannel socket = sockets.get(i % sockets.size());
+            int numero = i;
+            Thread hilo = new Thread(() -> aceptar(socket, numero), "aceptar-" + i);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        Registro.info("[*] Aceptando en el puerto " + puerto + " con " + HILOS + " hilos"
+                + (sockets.size() > 1 ? " (SO_REUSEPORT)" : "") + ", backlog " + BACKLOG);
+    }
+
+    public void cerrar() {
+        cerrado = true;
+        for (ServerSocketChannel socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ya cerrado
+            }
+        }
+        if (hiloAdmision != null) {
+            hiloAdmision.interrupt();
+        }
+    }
+
+    // Llamado por el manejador al arrancar, con el instante en que accept() devolvio su conexion.
+    // Mide la espera dentro del servidor, no la del backlog del kernel
+    public static void registrarEspera(long aceptadaNanos) {
+        long micros = (System.nanoTime() - aceptadaNanos) / 1000;
+        esperas.incrementAndGet();
+        esperaTotal.addAndGet(micros);
+        esperaMax.accumulateAndGet(micros, Math::max);
+    }
+
+    public String resumen() {
+        StringBuilder reparto = new StringBuilder();
+        long total = 0;
+        for (int i = 0; i < aceptadas.length(); i++) {
+            reparto.append(i == 0 ? "" : "/").append(aceptadas.get(i));
+            total += aceptadas.get(i);
+        }
+        long n = esperas.get();
+        return "Aceptacion: " + total + " conexiones (por hilo " + reparto + "), hasta el manejador media "
+                + (n == 0 ? 0 : esperaTotal.get() / n) + "us max " + esperaMax.get() + "us";
+    }
+
+    // ======================== INTERNOS ========================
+
+    // Bucle de un hilo: solo aceptar (a ritmo limitado) y pasar la conexion al hilo de admision.
+    // Con la cola de admision llena espera: mientras, las conexiones quedan en el backlog
+    private void aceptar(ServerSocketChannel socket, int numero) {
+        try {
+            while (true) {
+                if (limitador != null) {
+                    limitador.esperarToken();
+                }
+                SocketChannel cliente = socket.accept();
+                long aceptada = System.nanoTime();
+                aceptadas.incrementAndGet(numero);
+                pendientes.put(new Aceptada(cliente, aceptada));
+            }
+        } catch (ClosedChannelException e) {
+            // cerrar()
+        } catch (IOException e) {
+            if (!cerrado) {
+                Registro.error("[!] Error en el puerto " + puerto, e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Bucle del hilo de admision
+    private void admitir() {
+        try {
+            while (true) {
+                Aceptada siguiente = pendientes.take();
+                admision.admitir(siguiente.socket, siguiente.nanos);
+            }
+        } catch (InterruptedException e) {
+            // cerrar()
+        }
+    }
+
+    private static boolean admiteReusePort() {
+        try (ServerSocketChannel prueba = ServerSocketChannel.open()) {
+            return prueba.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}// fin clase
@@ -0,0 +1,189 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Entrada de eventos de una partida: muchos productores (manejadores,
+ * navegadores, jugadores simulados) y un solo escritor del estado del juego.
+ *
+ * Antes los manejadores escribian la respuesta de su jugador mientras el hilo
+ * del juego la reiniciaba o la puntuaba, sin sincronizar: una respuesta tardia
+ * podia colarse en la ronda siguiente. Ahora solo encolan (cola sin locks) y
+ * los eventos los ejecuta siempre el "dueno" del buzon:
+ *   - el hilo que juega la partida, que atiende el buzon en todas sus esperas
+ *     (atender, esperarEvento) en vez de dormir sin mas
+ *   - si nadie la esta jugando (antes de empezar, entre ordenes del
+ *     coordinador, esperando al admin) el productor que lo encuentra libre
+ * El relevo es un compareAndSet: nunca hay dos hilos tocando el estado y cada
+ * dueno ve lo que escribio el anterior.
+ *
+ * Mientras el hilo de la partida duerme en esperarEvento suelta el buzon: una
+ * rafaga de respuestas la aplican los propios hilos que las reciben, sin
+ * despertar al de la partida por cada una. Quien vacia el buzon le avisa
+ * despues para que vuelva a mirar sus condiciones (p. ej. si ya respondieron todos).
+ *
+ * El unico lock es el de "senal": con el duermen el dueno esperando eventos y
+ * quien espera a que el buzon quede libre para tomarlo.
+ */
+public class BuzonPartida {
+    private final Reloj reloj;
+    private final Queue<Runnable> eventos = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Thread> dueno = new AtomicReference<>();
+    // tomar() anidados del dueno (solo lo toca el dueno)
+    private int profundidad = 0;
+    // El dueno esta dormido en esperarEvento
+    private volatile boolean esperando = false;
+    // Hilos dormidos en tomar() (se cambia con senal tomado)
+    private volatile int esperandoDueno = 0;
+    private final Object senal = new Object();
+
+    public BuzonPartida(Reloj reloj) {
+        this.reloj = reloj;
+    }
+
+    // ======================== PRODUCTORES (cualquier hilo) ========================
+
+    public void publicar(Runnable evento) {
+        eventos.offer(evento);
+        if (dueno.get() == null) {
+            if (dueno.compareAndSet(null, Thread.currentThread())) {
+                profundidad = 1;
+                vaciar();
+                soltar();
+                // El hilo de la partida puede estar dormido con el buzon suelto
+                despertar();
+            }
+        } else {
+            despertar();
+        }
+    }
+
+    // Que el dueno vuelva a mirar sus condiciones (p. ej. se fue un jugador)
+    public void despertar() {
+        if (esperando) {
+            synchronized (senal) {
+                senal.notifyAll();
+            }
+        }
+    }
+
+    // ======================== DUENO ========================
+
+    // Hacerse dueno (duerme si un productor esta vaciando); se puede anidar
+    public void tomar() {
+        Thread yo = Thread.currentThread();
+        if (dueno.get() == yo) {
+            profundidad++;
+            return;
+        }
+        boolean interrumpido = false;
+        while (!dueno.compareAndSet(null, yo)) {
+            synchronized (senal) {
+                esperandoDueno++;
+                try {
+                    // soltar() avisa despues de dejar el buzon libre
+                    while (dueno.get() != null) {
+                        senal.wait();
+                    }
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                } finally {
+                    esperandoDueno--;
+                }
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+        profundidad = 1;
+    }
+
+    public void soltar() {
+        if (--profundidad > 0) return;
+        dueno.set(null);
+        // Lo que llego justo antes lo publico alguien que aun nos veia como dueno
+        while (!eventos.isEmpty() && dueno.compareAndSet(null, Thread.currentThread())) {
+            profundidad = 1;
+            vaciar();
+            profundidad = 0;
+            dueno.set(null);
+        }
+        if (esperandoDueno > 0) {
+            synchronized (senal) {
+                senal.notifyAll();
+            }
+        }
+    }
+
+    // Soltar el buzon mientras se bloquea en otra cosa (la consola del admin)
+    public void soltarDurante(Runnable bloqueo) {
+        int anidados = profundidad;
+        profundidad = 1;
+        soltar();
+        try {
+            bloqueo.run();
+        } finally {
+            tomar();
+            profundidad = anidados;
+        }
+    }
+
+    // Ejecutar todos los eventos pendientes
+    public void vaciar() {
+        Runnable evento;
+        while ((evento = eventos.poll()) != null) {
+            try {
+                evento.run();
+            } catch (RuntimeException e) {
+                // Un evento roto no para la partida
+                Registro.error("[!] Error en un evento de la partida", e);
+            }
+        }
+    }
+
+    // Dormir hasta que llegue un evento o pasen milisegundos. El dueno suelta el
+    // buzon mientras duerme (los productores aplican sus eventos) y lo recupera al volver
+    public void esperarEvento(long milisegundos) {
+        boolean soltado = dueno.get() == Thread.currentThread();
+        int anidados = profundidad;
+        synchronized (senal) {
+            // Antes de soltar: quien vacie a partir de ahora ve "esperando" y avisa
+            esperando = true;
+            try {
+                if (soltado) {
+                    profundidad = 0;
+                    dueno.set(null);
+                    if (esperandoDueno > 0) {
+                        senal.notifyAll();
+                    }
+                }
+                if (eventos.isEmpty()) {
+                    reloj.esperar(senal, milisegundos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                esperando = false;
+            }
+        }
+        if (soltado) {
+            tomar();
+            profundidad = anidados;
+        }
+    }
+
+    // Pausa de la partida atendiendo los eventos que lleguen mientras tanto
+    public void atender(long milisegundos) {
+        long fin = reloj.ahoraMs() + milisegundos;
+        while (true) {
+            vaciar();
+            long restante = fin - reloj.ahoraMs();
+            if (restante <= 0 || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            esperarEvento(restante);
+        }
+    }
+}// fin clase
@@ -0,0 +1,216 @@
+package server;
+
+import model.Configuracion;
+import model.ContextoTLS;
+import model.Pregunta;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+/**
+ * Carga del banco de preguntas: CSV por FTP o preguntas por defecto.
+ * La usan tanto ServidorQuiz como CoordinadorQuiz.
+ */
+public class CargadorPreguntas {
+    // Direccion FTP para cargar CSV (para nota 6+)
+    private static final String FTP_HOST = "80.225.190.216";
+    private static final int FTP_PUERTO = 21;
+    // FTPS explicito (AUTH TLS): el login y el CSV viajan cifrados
+    private static final boolean FTP_TLS = Configuracion.booleano("quiz.ftp.tls", false);
+
+    private CargadorPreguntas() {
+    }
+
+    public static List<Pregunta> cargarPreguntas() {
+        List<Pregunta> preguntas;
+        // Intentar cargar desde FTP
+        Registro.info("[*] Intentando cargar preguntas desde FTP " + FTP_HOST + "...");
+        List<Pregunta> preguntasFTP = cargarDesdeCSV_FTP();
+
+        if (preguntasFTP != null && !preguntasFTP.isEmpty()) {
+            preguntas = preguntasFTP;
+            Registro.info("[*] Preguntas cargadas desde FTP correctamente!");
+        } else {
+            Registro.aviso("[!] No se pudo cargar desde FTP. Usando preguntas por defecto.");
+            preguntas = cargarPreguntasPorDefecto();
+        }
+
+        Collections.shuffle(preguntas);
+        return preguntas;
+    }
+
+    /**
+     * Cargar preguntas desde un archivo CSV en servidor FTP.
+     * Usa conexion FTP manual con Sockets (basado en los patrones del curso).
+     * Formato CSV esperado: pregunta,opcionA,opcionB,opcionC,opcionD,respuestaCorrecta
+     * o la plantilla de Blooket (con "Time Limit (sec)" por pregunta), ver Pregunta.fromCSV
+     * Con quiz.ftp.tls=true pide AUTH TLS antes del login y PROT P para los datos;
+     * si el servidor no acepta TLS se aborta (nunca se manda PASS en claro).
+     */
+    private static List<Pregunta> cargarDesdeCSV_FTP() {
+        List<Pregunta> lista = new ArrayList<>();
+        Socket socketFTP = null;
+        BufferedReader lectorFTP = null;
+        PrintWriter escritorFTP = null;
+
+        try {
+            // Conexion al servidor FTP (puerto 21)
+            socketFTP = new Socket(FTP_HOST, FTP_PUERTO);
+            lectorFTP = new BufferedReader(new InputStreamReader(socketFTP.getInputStream()));
+            escritorFTP = new PrintWriter(socketFTP.getOutputStream(), true);
+
+            // Leer mensaje de bienvenida del FTP
+            String respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+            SSLSocketFactory fabricaTLS = null;
+            if (FTP_TLS) {
+                escritorFTP.println("AUTH TLS");
+                respuesta = lectorFTP.readLine();
+                Registro.info("  FTP: " + respuesta);
+                if (respuesta == null || !respuesta.startsWith("234")) {
+                    Registro.aviso("  [!] El servidor FTP no acepta AUTH TLS");
+                    return null;
+                }
+                // Cifrar la conexion de control ya abierta
+                fabricaTLS = ContextoTLS.cliente().getSocketFactory();
+                SSLSocket control = (SSLSocket) fabricaTLS.createSocket(socketFTP, FTP_HOST, FTP_PUERTO, true);
+                ContextoTLS.verificarHost(control);
+                control.startHandshake();
+                socketFTP = control;
+                lectorFTP = new BufferedReader(new InputStreamReader(socketFTP.getInputStream()));
+                escritorFTP = new PrintWriter(socketFTP.getOutputStream(), true);
+            }
+
+            // Login anonimo
+            escritorFTP.println("USER alumno");
+            respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+            escritorFTP.println("PASS alumno");
+            respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+            if (FTP_TLS) {
+                // Canal de datos tambien cifrado
+                escritorFTP.println("PBSZ 0");
+                Registro.info("  FTP: " + lectorFTP.readLine());
+                escritorFTP.println("PROT P");
+                respuesta = lectorFTP.readLine();
+                Registro.info("  FTP: " + respuesta);
+                if (respuesta == null || !respuesta.startsWith("200")) {
+                    Registro.aviso("  [!] El servidor FTP no acepta PROT P");
+                    return null;
+                }
+            }
+
+            // Modo pasivo para transferencia de datos
+            escritorFTP.println("PASV");
+            respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+            // Parsear IP y puerto del modo pasivo: 227 Entering Passive Mode (h1,h2,h3,h4,p1,p2)
+            int inicioParentesis = respuesta.indexOf('(');
+            int finParentesis = respuesta.indexOf(')');
+            if (inicioParentesis == -1 || finParentesis == -1) {
+                Registro.aviso("  [!] No se pudo parsear respuesta PASV");
+                return null;
+            }
+            String[] numeros = respuesta.substring(inicioParentesis + 1, finParentesis).split(",");
+            String ipDatos = numeros[0] + "." + numeros[1] + "." + numeros[2] + "." + numeros[3];
+            int puertoDatos = Integer.parseInt(numeros[4]) * 256 + Integer.parseInt(numeros[5]);
+
+            // Solicitar el archivo CSV
+            escritorFTP.println("RETR /ftp/datos/blooket.csv");
+            respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+            // Conectar al puerto de datos para recibir el archivo
+            Socket socketDatos = new Socket(ipDatos, puertoDatos);
+            if (fabricaTLS != null) {
+                // Mismo host y puerto que el control: el certificado se comprueba contra FTP_HOST
+                // (no contra la IP del PASV) y JSSE reanuda la sesion del control, que muchos
+                // servidores FTPS exigen en el canal de datos
+                SSLSocket datos = (SSLSocket) fabricaTLS.createSocket(socketDatos, FTP_HOST, FTP_PUERTO, true);
+                ContextoTLS.verificarHost(datos);
+                datos.startHandshake();
+                socketDatos = datos;
+            }
+            BufferedReader lectorDatos = new BufferedReader(
+                    new InputStreamReader(socketDatos.getInputStream())
+            );
+
+            // Leer CSV linea por linea
+            String linea;
+            boolean primeraLinea = true;
+            while ((linea = lectorDatos.readLine()) != null) {
+                // Saltar cabecera si existe
+                if (primeraLinea) {
+                    primeraLinea = false;
+                    // Si la primera linea no parece una pregunta valida, es cabecera
+                    if (linea.toLowerCase().contains("pregunta") || linea.toLowerCase().contains("question")) {
+                        continue;
+                    }
+                }
+                if (!linea.trim().isEmpty()) {
+                    Pregunta p = Pregunta.fromCSV(linea);
+                    if (p != null) {
+                        lista.add(p);
+                    }
+                }
+            }
+
+            // Cerrar conexion de datos
+            lectorDatos.close();
+            socketDatos.close();
+
+            // Leer confirmacion de transferencia
+            respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+            // Cerrar sesion FTP
+            escritorFTP.println("QUIT");
+            respuesta = lectorFTP.readLine();
+            Registro.info("  FTP: " + respuesta);
+
+        } catch (IOException e) {
+            Registro.aviso("  [!] Error FTP: " + e.getMessage());
+            return null;
+        } finally {
+            try {
+                if (lectorFTP != null) lectorFTP.close();
+                if (escritorFTP != null) escritorFTP.close();
+                if (socketFTP != null) socketFTP.close();
+            } catch (IOException e) {
+                Registro.error("[!] Error cerrando la conexion FTP", e);
+            }
+        }
+
+        return lista;
+    }
+
+    // Preguntas por defecto si no se puede acceder al FTP
+    static List<Pregunta> cargarPreguntasPorDefecto() {
+        List<Pregunta> preguntas = new ArrayList<>();
+        preguntas.add(new Pregunta(
+                "Que protocolo usa la web para transferir paginas?",
+                "FTP", "HTTP", "SMTP", "SSH", 'B'));
+        preguntas.add(new Pregunta(
+                "Que puerto usa por defecto el protocolo HTTP?",
+                "21", "443", "80", "8080", 'C'));
+        preguntas.add(new Pregunta(
+                "Que clase de Java se usa para crear un servidor TCP?",
+                "Socket", "ServerSocket", "DatagramSocket", "URLConnection", 'B'));
+        preguntas.add(new Pregunta(
+                "Cual de estos NO es un metodo HTTP?",
+                "GET", "POST", "SEND", "DELETE", 'C'));
+        preguntas.add(new Pregunta(
+                "Que significa TCP?",
+                "Transfer Control Protocol", "Transmission Control Protocol",
+                "Technical Communication Protocol", "Transport Connection Protocol", 'B'));
+        return preguntas;
+    }
+}
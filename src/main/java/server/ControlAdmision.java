@@ -0,0 +1,196 @@
+package server;
+
+import eventos.EventoConexion;
+import model.ContextoTLS;
+import model.ProtocoloHTTP;
+
+import java.io.*;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Control de admision del puerto principal.
+ *
+ * - Hasta "capacidad" jugadores activos, cada uno con su hilo del pool
+ *   (el pool tiene exactamente ese tamano, asi ningun manejador se queda sin hilo).
+ * - Los siguientes esperan en una cola de sala (lobby) y reciben su posicion
+ *   (HTTP Response Type: COLA) cada vez que cambia.
+ * - Con la cola llena se responde 503 (Type: LLENO) y se cierra la conexion.
+ *
+ * Solo cuenta como jugador (ServidorQuiz.clientes) quien ya ha sido admitido
+ * y ha enviado su nombre.
+ * Los jugadores web (SSE) no ocupan hilo del pool y no pasan por aqui.
+ *
+ * Las escrituras (COLA, LLENO) nunca se hacen con el monitor tomado: bajo el
+ * lock solo se cambia el estado. Los de la cola tienen el socket en modo no
+ * bloqueante y cada aviso es una sola escritura; quien no lee su socket y no
+ * le cabe el aviso se da por caido. Las posiciones las envia el hilo "sala",
+ * que agrupa los cambios seguidos (una rafaga de liberar() es una pasada) y
+ * solo escribe a quien le ha cambiado la posicion.
+ *
+ * Con TLS el cliente espera el handshake, asi que no se le puede escribir en
+ * claro: la cola es silenciosa y el rechazo es solo cerrar la conexion.
+ */
+public class ControlAdmision {
+    private final int capacidad;
+    private final int maxCola;
+    private final ExecutorService pool;
+    private final ExecutorService sala = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sala");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int activos = 0;
+    private final Deque<SocketChannel> cola = new ArrayDeque<>();
+    // Hay una pasada de avisos encargada al hilo "sala" que aun no ha mirado la cola
+    private boolean avisoPendiente = false;
+    // Ultima posicion enviada a cada uno de la cola (solo la toca el hilo "sala")
+    private Map<SocketChannel, Integer> posicionesEnviadas = new HashMap<>();
+
+    public ControlAdmision(int capacidad, int maxCola, ExecutorService pool) {
+        this.capacidad = capacidad;
+        this.maxCola = maxCola;
+        this.pool = pool;
+    }
+
+    // Llamado por el hilo de admision con cada conexion nueva (aceptada = System.nanoTime() del accept)
+    public void admitir(SocketChannel socket, long aceptada) {
+        SocketAddress direccion = direccionRemota(socket);
+        String resultado;
+        synchronized (this) {
+            if (activos < capacidad) {
+                lanzar(socket, aceptada);
+                resultado = "admitida";
+            } else if (cola.size() < maxCola) {
+                if (modoBloqueante(socket, false)) {
+                    cola.addLast(socket);
+                    programarAvisos();
+                    Registro.info("[*] Jugador en cola (" + cola.size() + " esperando)");
+                    resultado = "cola";
+                } else {
+                    resultado = "caida";
+                }
+            } else {
+                resultado = "rechazada";
+            }
+        }
+        if (resultado.equals("rechazada")) {
+            rechazar(socket);
+        }
+        EventoConexion.registrar(direccion, resultado);
+    }
+
+    // Llamado cuando un manejador termina: su hueco pasa al primero de la cola
+    public synchronized void liberar() {
+        activos--;
+        while (activos < capacidad && !cola.isEmpty()) {
+            SocketChannel siguiente = cola.pollFirst();
+            // El manejador lee y escribe en modo bloqueante
+            if (siguiente.isOpen() && modoBloqueante(siguiente, true)) {
+                // La espera en la cola de sala no cuenta como espera de aceptacion
+                lanzar(siguiente, -1);
+            }
+        }
+        programarAvisos();
+    }
+
+    public synchronized int getEnCola() { return cola.size(); }
+
+    // ======================== INTERNOS ========================
+
+    private void lanzar(SocketChannel socket, long aceptada) {
+        activos++;
+        pool.execute(new ManejadorClienteQuiz(socket, aceptada));
+    }
+
+    // Con el monitor tomado: encargar una pasada de avisos si no hay ya una pendiente
+    private void programarAvisos() {
+        if (!avisoPendiente) {
+            avisoPendiente = true;
+            sala.execute(this::avisarPosiciones);
+        }
+    }
+
+    // Hilo "sala": enviar su posicion a quien le haya cambiado (y quitar los caidos)
+    private void avisarPosiciones() {
+        List<SocketChannel> enCola;
+        synchronized (this) {
+            avisoPendiente = false;
+            enCola = new ArrayList<>(cola);
+        }
+        Map<SocketChannel, Integer> enviadas = new HashMap<>();
+        List<SocketChannel> caidos = new ArrayList<>();
+        int posicion = 1;
+        for (SocketChannel socket : enCola) {
+            Integer anterior = posicionesEnviadas.get(socket);
+            if ((anterior == null || anterior != posicion) && !enviarPosicion(socket, posicion)) {
+                caidos.add(socket);
+                continue;
+            }
+            enviadas.put(socket, posicion);
+            posicion++;
+        }
+        posicionesEnviadas = enviadas;
+        if (!caidos.isEmpty()) {
+            synchronized (this) {
+                cola.removeAll(caidos);
+            }
+        }
+    }
+
+    private static SocketAddress direccionRemota(SocketChannel socket) {
+        try {
+            return socket.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean enviarPosicion(SocketChannel socket, int posicion) {
+        if (ContextoTLS.activo()) {
+            return socket.isOpen();
+        }
+        // El mismo lock que liberar() al pasarlo a bloqueante: si ya salio de la cola no se le escribe
+        synchronized (socket) {
+            if (socket.isBlocking()) return true;
+            if (ProtocoloHTTP.intentarEnviarRespuesta(socket, 200, "COLA",
+                    "Servidor completo. Estas en la posicion " + posicion + " de la cola")) {
+                return true;
+            }
+        }
+        cerrar(socket);
+        return false;
+    }
+
+    private void rechazar(SocketChannel socket) {
+        if (!ContextoTLS.activo() && modoBloqueante(socket, false)) {
+            ProtocoloHTTP.intentarEnviarRespuesta(socket, 503, "LLENO", "Servidor completo y cola llena. Intentalo mas tarde");
+        }
+        Registro.aviso("[!] Conexion rechazada: cola llena (" + maxCola + ")");
+        cerrar(socket);
+    }
+
+    // Cambiar el modo del socket; si falla se cierra
+    private static boolean modoBloqueante(SocketChannel socket, boolean bloqueante) {
+        synchronized (socket) {
+            try {
+                socket.configureBlocking(bloqueante);
+                return true;
+            } catch (IOException e) {
+                cerrar(socket);
+                return false;
+            }
+        }
+    }
+
+    private static void cerrar(SocketChannel socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ya cerrado
+        }
+    }
+}
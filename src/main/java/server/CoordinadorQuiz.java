@@ -0,0 +1,289 @@
+package server;
+
+import model.Configuracion;
+import model.Pregunta;
+import model.ProtocoloHTTP;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Coordinador de una partida repartida en varios nodos (ServidorQuiz en modo nodo).
+ * Cada nodo tiene su propio puerto y sus propios jugadores; el coordinador
+ * reparte las preguntas a todos a la vez, recoge el top-K de cada nodo y
+ * devuelve el ranking global fusionado.
+ *
+ * Prueba en local con varias JVM:
+ *   java -Dquiz.coordinador.puerto=9090 server.CoordinadorQuiz
+ *   java -Dquiz.coordinador=localhost:9090 -Dquiz.puerto=8080 -Dquiz.http.puerto=8081 server.ServidorQuiz
+ *   java -Dquiz.coordinador=localhost:9090 -Dquiz.puerto=8090 -Dquiz.http.puerto=8091 server.ServidorQuiz
+ * y conectar los clientes a 8080 o a 8090. Se inicia escribiendo "iniciar" en
+ * el coordinador (o con -Dquiz.auto=true -Dquiz.auto.jugadores=N, sumando todos los nodos).
+ *
+ * Cada ronda va en paso cerrado: PREGUNTA a todos los nodos -> cada nodo juega
+ * la ronda y envia POST /parcial -> ranking global -> RANKING a todos -> NEXT.
+ */
+public class CoordinadorQuiz {
+    private static final int PUERTO = Configuracion.entero("quiz.coordinador.puerto", 9090);
+    // Tamano del ranking global (y del top-K que envia cada nodo)
+    private static final int TOP_K = Configuracion.entero("quiz.ranking.k", 10);
+    private static final boolean MODO_AUTO = Configuracion.booleano("quiz.auto", false);
+    private static final int JUGADORES_AUTO = Configuracion.entero("quiz.auto.jugadores", 0);
+    // Margen sobre el tiempo limite para que lleguen los parciales de los nodos
+    private static final int MARGEN_PARCIALES = 5000;
+
+    // Nodos conectados
+    private static Set<ConexionNodo> nodos = ConcurrentHashMap.newKeySet();
+    // Protege los parciales recibidos de cada ronda
+    private static final Object lockParciales = new Object();
+    private static List<Pregunta> preguntas = new ArrayList<>();
+
+    public static void main(String[] args) {
+        Registro.info("╔══════════════════════════════════╗");
+        Registro.info("║    COORDINADOR QUIZ BLOOKET      ║");
+        Registro.info("╚══════════════════════════════════╝");
+
+        preguntas = CargadorPreguntas.cargarPreguntas();
+
+        Registro.info("[*] Coordinador iniciado en puerto " + PUERTO);
+        Registro.info("[*] " + preguntas.size() + " preguntas cargadas");
+        Registro.info("[*] Esperando nodos...");
+
+        // Hilo para aceptar nodos
+        Thread hiloNodos = new Thread(() -> {
+            try (ServerSocket serverSocket = new ServerSocket(PUERTO)) {
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    ConexionNodo nodo = new ConexionNodo(socket);
+                    nodos.add(nodo);
+                    Thread hiloNodo = new Thread(nodo);
+                    hiloNodo.setDaemon(true);
+                    hiloNodo.start();
+                }
+            } catch (IOException e) {
+                Registro.error("[!] Error aceptando nodos", e);
+            }
+        });
+        hiloNodos.setDaemon(true);
+        hiloNodos.start();
+
+        Scanner scannerAdmin = new Scanner(System.in);
+        PlanificadorRondas planificador = new PlanificadorRondas(MODO_AUTO, scannerAdmin);
+
+        if (MODO_AUTO && JUGADORES_AUTO > 0) {
+            Registro.info("[*] Modo automatico: el juego empieza con " + JUGADORES_AUTO + " jugadores\n");
+            while (totalJugadores() < JUGADORES_AUTO) {
+                esperar(200);
+            }
+        } else {
+            Registro.info("[*] Escribe 'iniciar' para empezar el juego\n");
+            while (true) {
+                String comando = scannerAdmin.nextLine();
+                if (comando.equalsIgnoreCase("iniciar")) {
+                    if (totalJugadores() == 0) {
+                        Registro.aviso("[!] No hay jugadores en ningun nodo. Espera a que se conecten.");
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+
+        Registro.info("\n[*] JUEGO INICIADO con " + nodos.size() + " nodos y "
+                + totalJugadores() + " jugadores!\n");
+        iniciarJuego(planificador);
+
+        scannerAdmin.close();
+        Registro.info("\n[*] Coordinador cerrado.");
+        Registro.vaciar();
+    }// fin main
+
+    // ======================== LOGICA DEL JUEGO ========================
+
+    private static void iniciarJuego(PlanificadorRondas planificador) {
+        enviarATodos("INICIO", preguntas.size() + "|" + TOP_K);
+        esperar(2000);
+
+        String ranking = "";
+        for (int i = 0; i < preguntas.size(); i++) {
+            Pregunta pregunta = preguntas.get(i);
+            int ronda = i + 1;
+            Registro.info("Pregunta " + ronda + "/" + preguntas.size() + ": " + pregunta.getTexto()
+                    + " (" + pregunta.getTiempoLimite() + "s)");
+
+            long inicio = System.currentTimeMillis();
+            enviarATodos("PREGUNTA", ronda + "|" + preguntas.size() + "|" + pregunta.toMensajeCompleto());
+
+            // Esperar el top-K de cada nodo (en paso cerrado)
+            List<List<EntradaRanking>> parciales = esperarParciales(ronda,
+                    inicio + pregunta.getTiempoLimiteMs() + MARGEN_PARCIALES);
+            Registro.info("  " + parciales.size() + "/" + nodos.size() + " nodos en "
+                    + (System.currentTimeMillis() - inicio) + "ms");
+
+            ranking = EntradaRanking.formatear(EntradaRanking.fusionar(parciales, TOP_K));
+            planificador.esperarRevelado();
+
+            Registro.info("\n" + ranking);
+            enviarATodos("RANKING", ranking);
+
+            if (i < preguntas.size() - 1) {
+                planificador.esperarSiguiente();
+                enviarATodos("NEXT", "");
+                esperar(1000);
+            }
+        }
+
+        esperar(2000);
+        Registro.info("\n=== RANKING FINAL ===\n" + ranking);
+        enviarATodos("FIN", ranking);
+    }// fin iniciarJuego
+
+    // Esperar a que todos los nodos envien el parcial de la ronda o venza el plazo
+    private static List<List<EntradaRanking>> esperarParciales(int ronda, long plazo) {
+        synchronized (lockParciales) {
+            while (true) {
+                boolean faltan = false;
+                for (ConexionNodo nodo : nodos) {
+                    if (nodo.rondaParcial != ronda) {
+                        faltan = true;
+                        break;
+                    }
+                }
+                long restante = plazo - System.currentTimeMillis();
+                if (!faltan || restante <= 0) {
+                    break;
+                }
+                try {
+                    lockParciales.wait(restante);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            List<List<EntradaRanking>> parciales = new ArrayList<>();
+            for (ConexionNodo nodo : nodos) {
+                if (nodo.rondaParcial == ronda) {
+                    parciales.add(nodo.parcial);
+                } else {
+                    Registro.aviso("  [!] El nodo " + nodo.nombre + " no envio su ranking a tiempo");
+                }
+            }
+            return parciales;
+        }
+    }
+
+    private static void enviarATodos(String tipo, String cuerpo) {
+        for (ConexionNodo nodo : nodos) {
+            if (!nodo.enviar(tipo, cuerpo)) {
+                // PrintWriter no lanza excepciones: sin esto el nodo muerto seguiria contando
+                // (y se le esperaria el parcial) hasta que su hilo lector viera el cierre
+                Registro.aviso("[!] No se pudo enviar " + tipo + " al nodo " + nodo.nombre + ": se quita");
+                nodo.cerrar();
+            }
+        }
+    }
+
+    private static int totalJugadores() {
+        int total = 0;
+        for (ConexionNodo nodo : nodos) {
+            total += nodo.jugadores;
+        }
+        return total;
+    }
+
+    /**
+     * Hilo que lee las peticiones de un nodo (registro, jugadores y parciales).
+     */
+    private static class ConexionNodo implements Runnable {
+        private final Socket socket;
+        private PrintWriter salida;
+        private String nombre;
+        private volatile int jugadores = 0;
+        // Ultimo parcial recibido y su ronda (protegidos por lockParciales)
+        private int rondaParcial = 0;
+        private List<EntradaRanking> parcial = new ArrayList<>();
+
+        ConexionNodo(Socket socket) throws IOException {
+            this.socket = socket;
+            this.nombre = socket.getRemoteSocketAddress().toString();
+            this.salida = new PrintWriter(socket.getOutputStream(), true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                while (true) {
+                    String[] peticion = ProtocoloHTTP.leerPeticion(entrada);
+                    if (peticion == null) break;
+
+                    String ruta = peticion[1];
+                    String cuerpo = peticion[2];
+
+                    switch (ruta) {
+                        case "/nodo":
+                            nombre = cuerpo;
+                            Registro.info("[+] Nodo " + nombre + " conectado (" + nodos.size() + " nodos)");
+                            break;
+
+                        case "/jugadores":
+                            jugadores = Integer.parseInt(cuerpo.trim());
+                            Registro.info("[*] Nodo " + nombre + ": " + jugadores
+                                    + " jugadores (total " + totalJugadores() + ")");
+                            break;
+
+                        case "/parcial":
+                            int separador = cuerpo.indexOf('|');
+                            int ronda = Integer.parseInt(separador == -1 ? cuerpo : cuerpo.substring(0, separador));
+                            List<EntradaRanking> lista = EntradaRanking.parsear(
+                                    separador == -1 ? "" : cuerpo.substring(separador + 1));
+                            synchronized (lockParciales) {
+                                parcial = lista;
+                                rondaParcial = ronda;
+                                lockParciales.notifyAll();
+                            }
+                            break;
+
+                        default:
+                            break;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                Registro.info("[-] Error con nodo " + nombre + ": " + e.getMessage());
+            } finally {
+                cerrar();
+                Registro.info("[-] Nodo " + nombre + " desconectado");
+            }
+        }
+
+        // false si el socket ya no admite escrituras (checkError vacia el PrintWriter)
+        boolean enviar(String tipo, String cuerpo) {
+            ProtocoloHTTP.enviarRespuesta(salida, 200, tipo, cuerpo);
+            return !salida.checkError();
+        }
+
+        // Quitar el nodo de la partida y cerrar su socket (su hilo lector termina con el)
+        void cerrar() {
+            nodos.remove(this);
+            synchronized (lockParciales) {
+                lockParciales.notifyAll();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                Registro.error("[!] Error cerrando la conexion del nodo " + nombre, e);
+            }
+        }
+    }
+
+    private static void esperar(int milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}// fin clase
@@ -0,0 +1,65 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ejecuta las tareas de UN jugador en orden, una detras de otra, usando los
+ * hilos de un pool compartido. Asi los envios a un socket lento no bloquean
+ * al hilo del juego ni a los demas jugadores, y cada jugador recibe sus
+ * mensajes en el mismo orden en que se generaron.
+ */
+public class EjecutorSerie implements Executor {
+    private final Executor pool;
+    private final Queue<Runnable> tareas = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean enMarcha = new AtomicBoolean(false);
+
+    public EjecutorSerie(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void execute(Runnable tarea) {
+        tareas.add(tarea);
+        programar();
+    }
+
+    // Como execute, pero si no hay nada en marcha se ejecuta ya en el hilo que llama
+    // (mismo orden). Solo para hilos que pueden bloquearse escribiendo, nunca el del juego
+    public void ejecutarAqui(Runnable tarea) {
+        tareas.add(tarea);
+        if (enMarcha.compareAndSet(false, true)) {
+            vaciar();
+        }
+    }
+
+    private void programar() {
+        if (enMarcha.compareAndSet(false, true)) {
+            try {
+                pool.execute(this::vaciar);
+            } catch (RejectedExecutionException e) {
+                // Pool cerrado: se ejecuta en el hilo que llama para no perder mensajes
+                vaciar();
+            }
+        }
+    }
+
+    private void vaciar() {
+        Runnable tarea;
+        while ((tarea = tareas.poll()) != null) {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                Registro.error("[!] Error en un envio a un jugador", e);
+            }
+        }
+        enMarcha.set(false);
+        // Puede haber llegado una tarea entre el ultimo poll y el set
+        if (!tareas.isEmpty()) {
+            programar();
+        }
+    }
+}
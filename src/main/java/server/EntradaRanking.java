@@ -0,0 +1,91 @@
+package server;
+
+import java.util.*;
+
+/**
+ * Una linea del ranking (nombre y puntos).
+ * Los nodos envian al coordinador su top-K como lista de entradas y el
+ * coordinador las fusiona en el ranking global (ver CoordinadorQuiz).
+ */
+public class EntradaRanking {
+    private final String nombre;
+    private final int puntos;
+
+    public EntradaRanking(String nombre, int puntos) {
+        this.nombre = nombre;
+        this.puntos = puntos;
+    }
+
+    public String getNombre() { return nombre; }
+    public int getPuntos() { return puntos; }
+
+    // Formato del ranking para los jugadores: "1. Ana - 900 pts | 2. Luis - 500 pts"
+    public static String formatear(List<EntradaRanking> entradas) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entradas.size(); i++) {
+            EntradaRanking e = entradas.get(i);
+            sb.append((i + 1)).append(". ")
+                    .append(e.nombre)
+                    .append(" - ")
+                    .append(e.puntos)
+                    .append(" pts");
+            if (i < entradas.size() - 1) sb.append(" | ");
+        }
+        return sb.toString();
+    }
+
+    // ======================== ENTRE NODOS ========================
+
+    // "puntos:nombre|puntos:nombre" (los puntos van delante porque el nombre puede tener ':')
+    public static String serializar(List<EntradaRanking> entradas) {
+        StringBuilder sb = new StringBuilder();
+        for (EntradaRanking e : entradas) {
+            if (sb.length() > 0) sb.append('|');
+            sb.append(e.puntos).append(':').append(e.nombre.replace("|", ""));
+        }
+        return sb.toString();
+    }
+
+    public static List<EntradaRanking> parsear(String texto) {
+        List<EntradaRanking> lista = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) return lista;
+        for (String parte : texto.split("\\|")) {
+            int dosPuntos = parte.indexOf(':');
+            if (dosPuntos <= 0) continue;
+            try {
+                lista.add(new EntradaRanking(parte.substring(dosPuntos + 1),
+                        Integer.parseInt(parte.substring(0, dosPuntos))));
+            } catch (NumberFormatException e) {
+                // entrada corrupta, se ignora
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Fusionar los top-K parciales de cada nodo en el top-K global.
+     * Cada lista parcial ya viene ordenada de mayor a menor, asi que basta
+     * con una mezcla de k vias sobre una cola de prioridad.
+     */
+    public static List<EntradaRanking> fusionar(List<List<EntradaRanking>> parciales, int k) {
+        // Cada elemento de la cola: {indice de la lista, posicion dentro de la lista}
+        PriorityQueue<int[]> cola = new PriorityQueue<>((a, b) ->
+                Integer.compare(parciales.get(b[0]).get(b[1]).puntos, parciales.get(a[0]).get(a[1]).puntos));
+        for (int i = 0; i < parciales.size(); i++) {
+            if (!parciales.get(i).isEmpty()) {
+                cola.add(new int[]{i, 0});
+            }
+        }
+
+        List<EntradaRanking> global = new ArrayList<>();
+        while (!cola.isEmpty() && global.size() < k) {
+            int[] cabeza = cola.poll();
+            List<EntradaRanking> lista = parciales.get(cabeza[0]);
+            global.add(lista.get(cabeza[1]));
+            if (cabeza[1] + 1 < lista.size()) {
+                cola.add(new int[]{cabeza[0], cabeza[1] + 1});
+            }
+        }
+        return global;
+    }
+}
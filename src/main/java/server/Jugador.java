@@ -0,0 +1,166 @@
+package server;
+
+import eventos.EventoRespuesta;
+import model.PrecargaPregunta;
+import model.Pregunta;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Estado comun de un jugador de la partida, independiente de como este conectado.
+ *
+ * Subclases:
+ *   - ManejadorClienteQuiz: cliente Java con el protocolo propio (ProtocoloHTTP)
+ *   - JugadorWeb: navegador conectado por SSE (ServidorEventos)
+ *
+ * El estado de la ronda (respuesta, tiempos, puntos) solo lo escribe el dueno
+ * del buzon de la partida: el hilo que recibe una respuesta la pasa con
+ * recibirRespuesta y no toca nada mas.
+ */
+public abstract class Jugador {
+    protected String nombreUsuario;
+    // Partida en la que esta y orden de llegada (los pone Partida.agregar)
+    Partida partida;
+    long orden;
+
+    // Estado de la ronda (solo el dueno del buzon de la partida)
+    // Respuesta del cliente a la pregunta actual
+    protected char respuestaActual = ' ';
+    // Momento en que se envio la pregunta (para calcular velocidad)
+    protected long tiempoEnvioPregunta = 0;
+    // Tiempo que tardo en responder (milisegundos)
+    protected long tiempoRespuesta = Long.MAX_VALUE;
+    // Puntuacion acumulada
+    protected int puntuacion = 0;
+    // Flag para saber si ya respondio a la pregunta actual
+    protected boolean haRespondido = false;
+    // Numero de la pregunta actual del jugador: lo sube el dueno del buzon y lo lee
+    // el hilo que recibe cada respuesta, que lo lleva con ella hasta el buzon
+    private volatile int ronda = 0;
+
+    // ======================== RESPUESTAS ========================
+
+    // Reiniciar el estado de respuesta al lanzar una pregunta nueva
+    protected void prepararPregunta() {
+        haRespondido = false;
+        respuestaActual = ' ';
+        tiempoRespuesta = Long.MAX_VALUE;
+        tiempoEnvioPregunta = reloj().ahoraMs();
+        // Despues de la hora: quien vea la ronda nueva ve tambien su tiempoEnvioPregunta
+        ronda++;
+    }
+
+    /**
+     * Respuesta recibida por el hilo del jugador: solo se anota la hora y se
+     * pasa a la partida. Cuando se procesa se llama a contestar con
+     * (null, confirmacion) si se acepta o (error, null) si no.
+     */
+    protected void recibirRespuesta(String cuerpo, BiConsumer<String, String> contestar) {
+        int rondaRecibida = ronda;
+        long recibida = reloj().ahoraMs();
+        if (partida == null) {
+            contestar.accept("No estas en ninguna partida", null);
+            return;
+        }
+        partida.publicar(() -> aplicarRespuesta(cuerpo, rondaRecibida, recibida, contestar));
+    }
+
+    // En el dueno del buzon: validar y guardar la respuesta
+    private void aplicarRespuesta(String cuerpo, int rondaRecibida, long recibida, BiConsumer<String, String> contestar) {
+        String error = validarRespuesta(cuerpo, rondaRecibida);
+        long latencia = recibida - tiempoEnvioPregunta;
+        if (error == null) {
+            respuestaActual = Character.toUpperCase(cuerpo.trim().charAt(0));
+            haRespondido = true;
+            tiempoRespuesta = latencia;
+        }
+        EventoRespuesta.registrar(nombreUsuario, error == null ? respuestaActual : ' ', latencia, error);
+        if (error != null) {
+            contestar.accept(error, null);
+            return;
+        }
+        contestar.accept(null, "Respuesta " + respuestaActual + " recibida en " + tiempoRespuesta + "ms");
+        notificarRespuesta();
+    }
+
+    // null si la respuesta es valida para la pregunta actual
+    private String validarRespuesta(String cuerpo, int rondaRecibida) {
+        if (rondaRecibida != ronda) {
+            // Se leyo antes de lanzar esta pregunta: era para la anterior
+            return "La pregunta ya ha terminado";
+        }
+
+        if (haRespondido) {
+            return "Ya has respondido a esta pregunta";
+        }
+
+        if (cuerpo == null || cuerpo.trim().isEmpty()) {
+            return "Respuesta vacia";
+        }
+
+        char respuesta = Character.toUpperCase(cuerpo.trim().charAt(0));
+
+        if (respuesta != 'A' && respuesta != 'B' && respuesta != 'C' && respuesta != 'D') {
+            return "Respuesta invalida. Solo A, B, C o D";
+        }
+        return null;
+    }
+
+    // Mostrar la respuesta en consola y avisar a la partida (tras confirmar al jugador)
+    private void notificarRespuesta() {
+        partida.mostrar("    " + nombreUsuario + " respondio: " + respuestaActual + " (" + tiempoRespuesta + "ms)");
+        partida.clienteRespondio();
+    }
+
+    private Reloj reloj() {
+        return partida != null ? partida.getReloj() : RelojSistema.INSTANCIA;
+    }
+
+    // Formato del cuerpo PREGUNTA: num/total|texto|opA|opB|opC|opD|segundos
+    public static String cuerpoPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
+        return numeroPregunta + "/" + totalPreguntas + "|" + pregunta.toMensaje()
+                + "|" + pregunta.getTiempoLimite();
+    }
+
+    // Mensaje del resultado de una pregunta
+    public static String mensajeResultado(boolean correcta, int puntosGanados) {
+        return correcta
+                ? "CORRECTA! +" + puntosGanados + " puntos"
+                : "INCORRECTA. +0 puntos";
+    }
+
+    // ======================== ENVIOS ========================
+
+    public abstract void enviarPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas);
+
+    // Siguiente pregunta cifrada por adelantado; solo la usan los clientes que saben descifrarla
+    public void precargarPregunta(PrecargaPregunta precarga) {
+    }
+
+    // Empezar la ronda (precarga puede ser null); por defecto se envia la pregunta entera
+    public void revelarPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas, PrecargaPregunta precarga) {
+        enviarPregunta(pregunta, numeroPregunta, totalPreguntas);
+    }
+
+    public abstract void enviarRanking(String ranking);
+
+    public abstract void enviarNext();
+
+    public abstract void enviarResultado(boolean correcta, int puntosGanados);
+
+    public abstract void enviarFinJuego(String rankingFinal);
+
+    public abstract void enviarMensaje(String tipo, String mensaje);
+
+    // ======================== GETTERS ========================
+
+    public String getNombreUsuario() { return nombreUsuario; }
+    public char getRespuestaActual() { return respuestaActual; }
+    public long getTiempoRespuesta() { return tiempoRespuesta; }
+    public int getPuntuacion() { return puntuacion; }
+    public boolean haRespondido() { return haRespondido; }
+
+    public void sumarPuntos(int puntos) {
+        this.puntuacion += puntos;
+    }
+}
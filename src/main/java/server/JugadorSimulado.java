@@ -0,0 +1,144 @@
+package server;
+
+import model.Pregunta;
+
+import java.util.Random;
+
+/**
+ * Jugador en memoria para SimuladorPartida: no tiene socket, responde
+ * programando un evento en el RelojVirtual.
+ *
+ * Comportamiento (todo sale de su Random, asi la partida es repetible):
+ *   - a veces no responde (la ronda acaba por tiempo)
+ *   - a veces envia una respuesta invalida o responde dos veces
+ *   - el retardo va en pasos de 250 ms (muchos empates) y puede pasarse
+ *     hasta 1 s del tiempo limite (respuesta tardia que no puntua)
+ *
+ * Lleva su propia cuenta de los puntos que deberia tener para que el
+ * simulador la compare con la del servidor.
+ */
+public class JugadorSimulado extends Jugador {
+    private static final int PASO_MS = 250;
+    private static final int TARDE_MAX_MS = 1000;
+
+    private final RelojVirtual reloj;
+    private final Random random;
+    // Probabilidad de acertar (0..1)
+    private final double acierto;
+
+    private int rondaActual = 0;
+    // Cuenta propia de lo que deberia pasar
+    private int puntosEsperados = 0;
+    private int erroresEsperados = 0;
+    // Lo que ha recibido del servidor
+    private int preguntasRecibidas = 0;
+    private int puntosRecibidos = 0;
+    private int resultadosRecibidos = 0;
+    private int rankingsRecibidos = 0;
+    private int errores = 0;
+    private String rankingFinal;
+
+    public JugadorSimulado(String nombre, RelojVirtual reloj, Random random, double acierto) {
+        this.nombreUsuario = nombre;
+        this.reloj = reloj;
+        this.random = random;
+        this.acierto = acierto;
+    }
+
+    @Override
+    public void enviarPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
+        prepararPregunta();
+        rondaActual = numeroPregunta;
+        preguntasRecibidas++;
+
+        int accion = random.nextInt(100);
+        if (accion < 10) {
+            return; // no responde
+        }
+        long limite = pregunta.getTiempoLimiteMs();
+        long retardo = (long) PASO_MS * random.nextInt((int) ((limite + TARDE_MAX_MS) / PASO_MS) + 1);
+
+        char opcion;
+        if (accion < 13) {
+            opcion = 'X'; // invalida
+            erroresEsperados++;
+        } else if (random.nextDouble() < acierto) {
+            opcion = pregunta.getRespuestaCorrecta();
+        } else {
+            opcion = "ABCD".replace(String.valueOf(pregunta.getRespuestaCorrecta()), "").charAt(random.nextInt(3));
+        }
+
+        // Puntos que deberian salir (misma formula que ProcesadorPuntos, calculada aparte)
+        if (opcion == pregunta.getRespuestaCorrecta() && retardo <= limite) {
+            puntosEsperados += (int) Math.max(ProcesadorPuntos.PUNTOS_MIN, ProcesadorPuntos.PUNTOS_MAX
+                    - retardo * (ProcesadorPuntos.PUNTOS_MAX - ProcesadorPuntos.PUNTOS_MIN) / limite);
+        }
+
+        int ronda = numeroPregunta;
+        reloj.programar(retardo, () -> responder(ronda, opcion));
+        if (opcion != 'X' && accion < 15) {
+            // Segunda respuesta: el servidor debe rechazarla
+            erroresEsperados++;
+            reloj.programar(retardo + PASO_MS, () -> responder(ronda, 'A'));
+        }
+    }
+
+    private void responder(int ronda, char opcion) {
+        if (ronda != rondaActual) return;
+        recibirRespuesta(String.valueOf(opcion), (error, confirmacion) -> {
+            if (error != null) {
+                errores++;
+            }
+        });
+    }
+
+    @Override
+    public void enviarRanking(String ranking) {
+        rankingsRecibidos++;
+    }
+
+    @Override
+    public void enviarNext() {
+    }
+
+    @Override
+    public void enviarResultado(boolean correcta, int puntosGanados) {
+        resultadosRecibidos++;
+        puntosRecibidos += puntosGanados;
+    }
+
+    @Override
+    public void enviarFinJuego(String rankingFinal) {
+        this.rankingFinal = rankingFinal;
+    }
+
+    @Override
+    public void enviarMensaje(String tipo, String mensaje) {
+    }
+
+    // ======================== COMPROBACIONES ========================
+
+    // null si todo cuadra, o la descripcion del fallo
+    public String comprobar(int totalPreguntas) {
+        if (puntuacion != puntosEsperados) {
+            return nombreUsuario + ": puntuacion " + puntuacion + ", esperada " + puntosEsperados;
+        }
+        if (puntosRecibidos != puntuacion) {
+            return nombreUsuario + ": RESULTADO suma " + puntosRecibidos + ", puntuacion " + puntuacion;
+        }
+        if (errores != erroresEsperados) {
+            return nombreUsuario + ": " + errores + " errores, esperados " + erroresEsperados;
+        }
+        if (preguntasRecibidas != totalPreguntas || resultadosRecibidos != totalPreguntas
+                || rankingsRecibidos != totalPreguntas) {
+            return nombreUsuario + ": recibio " + preguntasRecibidas + " preguntas, " + resultadosRecibidos
+                    + " resultados y " + rankingsRecibidos + " rankings de " + totalPreguntas;
+        }
+        if (rankingFinal == null) {
+            return nombreUsuario + ": no recibio FIN";
+        }
+        return null;
+    }
+
+    public long getOrden() { return orden; }
+}
@@ -0,0 +1,79 @@
+package server;
+
+import model.Pregunta;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Jugador que juega desde un navegador (SSE + POST /respuesta).
+ *
+ * Los mensajes comunes a todos (PREGUNTA, RANKING, NEXT, FIN, INFO...) NO se
+ * envian jugador a jugador: ServidorQuiz los publica una sola vez en el canal SSE.
+ * Por eso esos metodos solo actualizan el estado. Lo personal (RESULTADO, ERROR)
+ * se envia solo al stream de este navegador.
+ */
+public class JugadorWeb extends Jugador {
+    private final String id;
+    private final ServidorEventos canal;
+    private final ServidorEventos.Suscriptor suscriptor;
+    // Limite de POST /respuesta del jugador (todas sus conexiones HTTP comparten el cubo)
+    private final LimitadorPeticiones limitador = new LimitadorPeticiones();
+
+    public JugadorWeb(String id, String nombreUsuario, ServidorEventos canal, ServidorEventos.Suscriptor suscriptor) {
+        this.id = id;
+        this.nombreUsuario = nombreUsuario;
+        this.canal = canal;
+        this.suscriptor = suscriptor;
+    }
+
+    public String getId() { return id; }
+
+    ServidorEventos.Suscriptor getSuscriptor() { return suscriptor; }
+
+    LimitadorPeticiones getLimitador() { return limitador; }
+
+    /**
+     * Procesar POST /respuesta. Se completa con [codigo, mensaje] para la
+     * respuesta HTTP cuando la partida la ha procesado.
+     */
+    public CompletableFuture<String[]> responder(String cuerpo) {
+        CompletableFuture<String[]> resultado = new CompletableFuture<>();
+        recibirRespuesta(cuerpo, (error, confirmacion) -> resultado.complete(error != null
+                ? new String[]{"400", error}
+                : new String[]{"200", confirmacion}));
+        return resultado;
+    }
+
+    // ======================== ENVIOS ========================
+
+    @Override
+    public void enviarPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
+        // La pregunta llega por la difusion SSE, aqui solo empieza a contar el tiempo
+        prepararPregunta();
+    }
+
+    @Override
+    public void enviarRanking(String ranking) {
+        // Difundido por ServidorQuiz
+    }
+
+    @Override
+    public void enviarNext() {
+        // Difundido por ServidorQuiz
+    }
+
+    @Override
+    public void enviarResultado(boolean correcta, int puntosGanados) {
+        canal.enviarA(suscriptor, "RESULTADO", mensajeResultado(correcta, puntosGanados));
+    }
+
+    @Override
+    public void enviarFinJuego(String rankingFinal) {
+        // Difundido por ServidorQuiz
+    }
+
+    @Override
+    public void enviarMensaje(String tipo, String mensaje) {
+        // Difundido por ServidorQuiz
+    }
+}
@@ -0,0 +1,107 @@
+package server;
+
+import model.Configuracion;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite de peticiones entrantes de una conexion: un cubo de tokens
+ * (LimitadorTokens) por ruta. Las rutas desconocidas comparten un cubo,
+ * asi inventar rutas no da tokens nuevos.
+ *
+ * Si el cubo esta vacio la peticion se frena: el manejador espera al
+ * siguiente token sin leer mas (al cliente se le llena el buffer TCP)
+ * y sin contestar nada. Una conexion que se frena demasiadas veces se
+ * expulsa.
+ *
+ * Los jugadores web no pueden esperar (el hilo "http" es compartido): con
+ * intentar() la peticion sin token se contesta con 429 y cuenta igual como
+ * frenada.
+ *
+ * Propiedades (tasa = peticiones por segundo, 0 = sin limite):
+ *   quiz.limite.respuesta.tasa / .rafaga   POST /respuesta (5 / 10)
+ *   quiz.limite.otras.tasa / .rafaga       cualquier otra ruta (1 / 5)
+ *   quiz.limite.frenadas                   frenadas antes de cerrar la conexion (20)
+ *
+ * Solo lo usa el hilo del manejador de su conexion (el de un jugador web,
+ * con el propio limitador como lock).
+ */
+public class LimitadorPeticiones {
+    private static final int TASA_RESPUESTA = Configuracion.entero("quiz.limite.respuesta.tasa", 5);
+    private static final int RAFAGA_RESPUESTA = Configuracion.entero("quiz.limite.respuesta.rafaga", 10);
+    private static final int TASA_OTRAS = Configuracion.entero("quiz.limite.otras.tasa", 1);
+    private static final int RAFAGA_OTRAS = Configuracion.entero("quiz.limite.otras.rafaga", 5);
+    private static final int MAX_FRENADAS = Configuracion.entero("quiz.limite.frenadas", 20);
+
+    private static final String RUTA_RESPUESTA = "/respuesta";
+    private static final String OTRAS = "*";
+
+    // Contadores de todo el servidor
+    private static final AtomicLong frenadas = new AtomicLong();
+    private static final AtomicLong expulsiones = new AtomicLong();
+
+    private final Map<String, LimitadorTokens> cubos = new HashMap<>();
+    private int frenadasConexion = 0;
+
+    /**
+     * Pedir permiso para procesar una peticion a la ruta.
+     * Devuelve true si se puede procesar (quiza tras esperar) o false si la
+     * conexion ha pasado del limite de frenadas y hay que cerrarla.
+     */
+    public boolean admitir(String ruta) throws InterruptedException {
+        LimitadorTokens cubo = cubo(ruta);
+        if (cubo == null || cubo.intentarConsumir()) {
+            return true;
+        }
+        if (!frenar()) {
+            return false;
+        }
+        cubo.esperarToken();
+        return true;
+    }
+
+    /**
+     * Igual que admitir pero sin esperar: false si no hay token (la peticion
+     * se rechaza). Mirar excedido() para saber si hay que cerrar la conexion.
+     */
+    public boolean intentar(String ruta) {
+        LimitadorTokens cubo = cubo(ruta);
+        if (cubo == null || cubo.intentarConsumir()) {
+            return true;
+        }
+        frenar();
+        return false;
+    }
+
+    // La conexion ha pasado del limite de frenadas
+    public boolean excedido() { return frenadasConexion > MAX_FRENADAS; }
+
+    public int getFrenadas() { return frenadasConexion; }
+
+    public static String resumen() {
+        return "Limite de peticiones: " + frenadas.get() + " frenadas, " + expulsiones.get() + " conexiones expulsadas";
+    }
+
+    private LimitadorTokens cubo(String ruta) {
+        String clave = RUTA_RESPUESTA.equals(ruta) ? RUTA_RESPUESTA : OTRAS;
+        return cubos.computeIfAbsent(clave, LimitadorPeticiones::crearCubo);
+    }
+
+    // Contar una frenada; false si con ella se pasa del limite
+    private boolean frenar() {
+        frenadas.incrementAndGet();
+        if (++frenadasConexion == MAX_FRENADAS + 1) {
+            expulsiones.incrementAndGet();
+        }
+        return frenadasConexion <= MAX_FRENADAS;
+    }
+
+    // null = ruta sin limite
+    private static LimitadorTokens crearCubo(String clave) {
+        int tasa = clave.equals(RUTA_RESPUESTA) ? TASA_RESPUESTA : TASA_OTRAS;
+        int rafaga = clave.equals(RUTA_RESPUESTA) ? RAFAGA_RESPUESTA : RAFAGA_OTRAS;
+        return tasa <= 0 ? null : new LimitadorTokens(tasa, rafaga);
+    }
+}
@@ -0,0 +1,52 @@
+package server;
+
+/**
+ * Cubo de tokens (token bucket): se rellena a "tasa" tokens por segundo
+ * hasta un maximo de "rafaga". Cada operacion permitida consume un token.
+ */
+public class LimitadorTokens {
+    private final double tasa;
+    private final double rafaga;
+    private double tokens;
+    private long ultimaRecarga;
+
+    public LimitadorTokens(double tasaPorSegundo, int rafaga) {
+        this.tasa = tasaPorSegundo;
+        this.rafaga = Math.max(1, rafaga);
+        this.tokens = this.rafaga;
+        this.ultimaRecarga = System.nanoTime();
+    }
+
+    // Consumir un token si hay; no bloquea
+    public synchronized boolean intentarConsumir() {
+        recargar();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // Esperar hasta que haya un token y consumirlo
+    public void esperarToken() throws InterruptedException {
+        while (true) {
+            long espera;
+            synchronized (this) {
+                recargar();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                // Milisegundos que faltan para el siguiente token
+                espera = (long) Math.ceil((1 - tokens) * 1000 / tasa);
+            }
+            Thread.sleep(Math.max(1, espera));
+        }
+    }
+
+    private void recargar() {
+        long ahora = System.nanoTime();
+        tokens = Math.min(rafaga, tokens + (ahora - ultimaRecarga) * tasa / 1_000_000_000.0);
+        ultimaRecarga = ahora;
+    }
+}
@@ -1,68 +1,109 @@
 package server;
 
+import eventos.EventoHandshake;
+import model.Configuracion;
+import model.ContextoTLS;
+import model.LectorTramas;
+import model.PrecargaPregunta;
 import model.Pregunta;
 import model.ProtocoloHTTP;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.net.ssl.SSLSocket;
 
 /**
  * Hilo que maneja la comunicacion con un cliente individual.
  * Basado en el patron de ManejadorCliente.java y ManejadorClienteChat.java
+ *
+ * Sin buffers propios: lee y escribe por el SocketChannel bloqueante con
+ * buffers de PoolBuffers solo mientras pasa una trama (ver LectorTramas).
+ * El hilo del pool si se queda bloqueado leyendo mientras la conexion esta
+ * parada; es la mayor parte de lo que ocupa un jugador en la sala.
+ *
+ * Con -Dquiz.tls=true la conexion llega en claro del hilo de aceptar y el
+ * handshake TLS se hace aqui, en el hilo del manejador (ver ContextoTLS).
  */
-public class ManejadorClienteQuiz implements Runnable {
-    private Socket socket;
-    private PrintWriter salida;
-    private BufferedReader entrada;
-    private String nombreUsuario;
+public class ManejadorClienteQuiz extends Jugador implements Runnable {
+    // Tiempo maximo para completar el handshake TLS
+    private static final int TIMEOUT_HANDSHAKE = Configuracion.entero("quiz.tls.timeout", 10000);
+
+    private SocketChannel socket;
+    // Instante del accept() (para medir la espera hasta este manejador)
+    private final long aceptada;
+    private WritableByteChannel salida;
+    private LectorTramas entrada;
     private boolean conectado = true;
-
-    // Respuesta del cliente a la pregunta actual
-    private char respuestaActual = ' ';
-    // Momento en que se envio la pregunta (para calcular velocidad)
-    private long tiempoEnvioPregunta = 0;
-    // Tiempo que tardo en responder (milisegundos)
-    private long tiempoRespuesta = Long.MAX_VALUE;
-    // Puntuacion acumulada
-    private int puntuacion = 0;
-    // Flag para saber si ya respondio a la pregunta actual
-    private boolean haRespondido = false;
-
-    public ManejadorClienteQuiz(Socket socket) {
+    // Mensajes del juego hacia este cliente, en orden y sin bloquear al hilo del juego
+    private final EjecutorSerie envios = new EjecutorSerie(ServidorQuiz.getDespachador());
+    // Hilo del manejador (el que lee del socket)
+    private Thread hilo;
+    // Ultimo aviso INFO aun sin enviar: en una sala grande llegan muchos seguidos y solo vale el ultimo
+    private final AtomicReference<String> infoPendiente = new AtomicReference<>();
+    // Cubos de tokens por ruta: frena y luego expulsa a quien inunda de peticiones
+    private final LimitadorPeticiones limitador = new LimitadorPeticiones();
+    // La sesion TLS se reanudo de una conexion anterior
+    private boolean reanudada = false;
+    // Ultima PRECARGA enviada (solo la toca el hilo del juego)
+    private PrecargaPregunta precargada;
+    // El cliente anuncio en POST /nombre que entiende PRECARGA/REVEAL (si no, recibe PREGUNTA)
+    private boolean aceptaPrecarga = false;
+
+    // aceptada: System.nanoTime() del accept(), o -1 si viene de la cola de sala
+    public ManejadorClienteQuiz(SocketChannel socket, long aceptada) {
         this.socket = socket;
+        this.aceptada = aceptada;
     }
 
     @Override
     public void run() {
+        hilo = Thread.currentThread();
+        if (aceptada >= 0) {
+            AceptadorConexiones.registrarEspera(aceptada);
+        }
+        EventoHandshake handshake = EventoHandshake.iniciar();
         try {
-            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            salida = new PrintWriter(socket.getOutputStream(), true);
+            if (ContextoTLS.activo()) {
+                SSLSocket tls = handshakeTLS();
+                entrada = new LectorTramas(Channels.newChannel(tls.getInputStream()));
+                salida = Channels.newChannel(tls.getOutputStream());
+            } else {
+                entrada = new LectorTramas(socket);
+                salida = socket;
+            }
 
             // Enviar peticion de nombre al cliente
             ProtocoloHTTP.enviarRespuesta(salida, 200, "NOMBRE", "Introduce tu nombre de usuario:");
 
             // Leer peticion POST /nombre del cliente
-            String[] peticion = ProtocoloHTTP.leerPeticion(entrada);
+            String[] peticion = entrada.leerPeticion();
             if (peticion != null && peticion[1].equals("/nombre")) {
                 nombreUsuario = peticion[2];
+                aceptaPrecarga = ProtocoloHTTP.acepta(peticion, ProtocoloHTTP.PRECARGA);
             }
 
             if (nombreUsuario == null || nombreUsuario.trim().isEmpty()) {
-                nombreUsuario = "Jugador_" + socket.getPort();
+                nombreUsuario = "Jugador_" + ((InetSocketAddress) socket.getRemoteAddress()).getPort();
             }
 
-            System.out.println("[+] " + nombreUsuario + " se ha conectado desde " + socket.getInetAddress());
+            Registro.info("[+] " + nombreUsuario + " se ha conectado desde "
+                    + ((InetSocketAddress) socket.getRemoteAddress()).getAddress());
 
             // Confirmar conexion
             ProtocoloHTTP.enviarRespuesta(salida, 200, "BIENVENIDA",
                     "Bienvenido " + nombreUsuario + "! Esperando a que comience el juego...");
+            handshake.terminar(nombreUsuario, ContextoTLS.activo(), reanudada);
 
-            // Notificar al servidor
-            ServidorQuiz.notificarConexion(nombreUsuario);
+            // Entrar en la partida: desde aqui recibe los mensajes del juego
+            ServidorQuiz.agregarJugador(this);
 
             // Bucle principal: escuchar respuestas del cliente
             while (conectado) {
-                peticion = ProtocoloHTTP.leerPeticion(entrada);
+                peticion = entrada.leerPeticion();
                 if (peticion == null) {
                     // Cliente se desconecto
                     break;
@@ -72,6 +113,12 @@ public class ManejadorClienteQuiz implements Runnable {
                 String ruta = peticion[1];
                 String cuerpo = peticion[2];
 
+                if (!limitador.admitir(ruta)) {
+                    Registro.aviso("[!] " + nombreUsuario + " expulsado por exceso de peticiones ("
+                            + limitador.getFrenadas() + " frenadas)");
+                    break;
+                }
+
                 if (ruta.equals("/respuesta") && metodo.equals("POST")) {
                     procesarRespuesta(cuerpo);
                 }
@@ -79,94 +126,117 @@ public class ManejadorClienteQuiz implements Runnable {
 
         } catch (IOException e) {
             if (conectado) {
-                System.out.println("[-] Error con cliente " + nombreUsuario + ": " + e.getMessage());
+                Registro.info("[-] Error con cliente " + nombreUsuario + ": " + e.getMessage());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
             desconectar();
         }
     }
 
-    private void procesarRespuesta(String cuerpo) {
-        if (haRespondido) {
-            ProtocoloHTTP.enviarRespuesta(salida, 400, "ERROR", "Ya has respondido a esta pregunta");
-            return;
-        }
-
-        if (cuerpo == null || cuerpo.trim().isEmpty()) {
-            ProtocoloHTTP.enviarRespuesta(salida, 400, "ERROR", "Respuesta vacia");
-            return;
+    // Envolver el socket en TLS (modo servidor) y medir el handshake
+    private SSLSocket handshakeTLS() throws IOException {
+        Socket base = socket.socket();
+        // El handshake son varios registros seguidos: sin esto Nagle + ACK retardado suman ~40ms por vuelta
+        base.setTcpNoDelay(true);
+        SSLSocket tls = (SSLSocket) ContextoTLS.servidor().getSocketFactory()
+                .createSocket(base, base.getInetAddress().getHostAddress(), base.getPort(), true);
+        tls.setUseClientMode(false);
+        tls.setSoTimeout(TIMEOUT_HANDSHAKE);
+        long inicio = System.currentTimeMillis();
+        long inicioNanos = System.nanoTime();
+        try {
+            tls.startHandshake();
+        } catch (IOException e) {
+            MetricasTLS.registrarFallo();
+            throw e;
         }
+        reanudada = ContextoTLS.sesionReanudada(tls.getSession(), inicio);
+        MetricasTLS.registrar(reanudada, System.nanoTime() - inicioNanos);
+        tls.setSoTimeout(0);
+        return tls;
+    }
 
-        char respuesta = Character.toUpperCase(cuerpo.trim().charAt(0));
+    // Solo se pasa a la partida; la contestacion sale por la cola de envio como el resto
+    private void procesarRespuesta(String cuerpo) {
+        recibirRespuesta(cuerpo, this::contestarRespuesta);
+    }
 
-        if (respuesta != 'A' && respuesta != 'B' && respuesta != 'C' && respuesta != 'D') {
-            ProtocoloHTTP.enviarRespuesta(salida, 400, "ERROR", "Respuesta invalida. Solo A, B, C o D");
-            return;
+    private void contestarRespuesta(String error, String confirmacion) {
+        Runnable envio = error != null
+                ? () -> ProtocoloHTTP.enviarRespuesta(salida, 400, "ERROR", error)
+                : () -> ProtocoloHTTP.enviarRespuesta(salida, 200, "CONFIRMACION", confirmacion);
+        if (Thread.currentThread() == hilo) {
+            // Aplicada por este mismo hilo (buzon libre): sin saltar a otro hilo para contestar
+            envios.ejecutarAqui(envio);
+        } else {
+            envios.execute(envio);
         }
-
-        respuestaActual = respuesta;
-        haRespondido = true;
-        tiempoRespuesta = System.currentTimeMillis() - tiempoEnvioPregunta;
-
-        ProtocoloHTTP.enviarRespuesta(salida, 200, "CONFIRMACION",
-                "Respuesta " + respuesta + " recibida en " + tiempoRespuesta + "ms");
-
-        System.out.println("    " + nombreUsuario + " respondio: " + respuesta + " (" + tiempoRespuesta + "ms)");
-
-        // avisar al servidor que este cliente ya respondio
-        ServidorQuiz.clienteRespondio();
     }
 
 
+    @Override
     public void enviarPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
-        haRespondido = false;
-        respuestaActual = ' ';
-        tiempoRespuesta = Long.MAX_VALUE;
-        tiempoEnvioPregunta = System.currentTimeMillis();
+        prepararPregunta();
+        String cuerpo = cuerpoPregunta(pregunta, numeroPregunta, totalPreguntas);
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "PREGUNTA", cuerpo));
+    }
 
-        String cuerpo = numeroPregunta + "/" + totalPreguntas + "|" + pregunta.toMensaje();
-        ProtocoloHTTP.enviarRespuesta(salida, 200, "PREGUNTA", cuerpo);
+    @Override
+    public void precargarPregunta(PrecargaPregunta precarga) {
+        if (!aceptaPrecarga) return;
+        precargada = precarga;
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "PRECARGA", precarga.cuerpoPrecarga()));
+    }
+
+    // Si ya tiene la pregunta cifrada basta con la clave (mismo orden de envio: la PRECARGA llega antes)
+    @Override
+    public void revelarPregunta(Pregunta pregunta, int numeroPregunta, int totalPreguntas, PrecargaPregunta precarga) {
+        if (precarga == null || precarga != precargada) {
+            enviarPregunta(pregunta, numeroPregunta, totalPreguntas);
+            return;
+        }
+        prepararPregunta();
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "REVEAL", precarga.cuerpoReveal()));
     }
 
     // enviar ranking
+    @Override
     public void enviarRanking(String ranking) {
-        ProtocoloHTTP.enviarRespuesta(salida, 200, "RANKING", ranking);
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "RANKING", ranking));
     }
 
     //NEXT (siguiente pregunta)
+    @Override
     public void enviarNext() {
-        ProtocoloHTTP.enviarRespuesta(salida, 200, "NEXT", "Siguiente pregunta...");
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "NEXT", "Siguiente pregunta..."));
     }
 
     // Enviar resultado de la pregunta (correcta/incorrecta)
+    @Override
     public void enviarResultado(boolean correcta, int puntosGanados) {
-        String msg = correcta
-                ? "CORRECTA! +" + puntosGanados + " puntos"
-                : "INCORRECTA. +0 puntos";
-        ProtocoloHTTP.enviarRespuesta(salida, 200, "RESULTADO", msg);
+        String mensaje = mensajeResultado(correcta, puntosGanados);
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "RESULTADO", mensaje));
     }
 
     // Enviar fin del juego
+    @Override
     public void enviarFinJuego(String rankingFinal) {
-        ProtocoloHTTP.enviarRespuesta(salida, 200, "FIN", rankingFinal);
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "FIN", rankingFinal));
         conectado = false;
     }
 
     // Enviar mensaje generico
+    @Override
     public void enviarMensaje(String tipo, String mensaje) {
-        ProtocoloHTTP.enviarRespuesta(salida, 200, tipo, mensaje);
-    }
-
-    // ======================== GETTERS ========================
-
-    public String getNombreUsuario() { return nombreUsuario; }
-    public char getRespuestaActual() { return respuestaActual; }
-    public long getTiempoRespuesta() { return tiempoRespuesta; }
-    public int getPuntuacion() { return puntuacion; }
-    public boolean haRespondido() { return haRespondido; }
-
-    public void sumarPuntos(int puntos) {
-        this.puntuacion += puntos;
+        if (tipo.equals("INFO")) {
+            if (infoPendiente.getAndSet(mensaje) == null) {
+                envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, "INFO", infoPendiente.getAndSet(null)));
+            }
+            return;
+        }
+        envios.execute(() -> ProtocoloHTTP.enviarRespuesta(salida, 200, tipo, mensaje));
     }
 
     // ======================== DESCONEXION ========================
@@ -175,14 +245,17 @@ public class ManejadorClienteQuiz implements Runnable {
         try {
             conectado = false;
             ServidorQuiz.removerCliente(this);
+            if (entrada != null) {
+                entrada.soltar();
+            }
             if (nombreUsuario != null) {
-                System.out.println("[-] " + nombreUsuario + " se ha desconectado");
+                Registro.info("[-] " + nombreUsuario + " se ha desconectado");
             }
             if (socket != null) {
                 socket.close();
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            Registro.error("[!] Error cerrando la conexion de " + nombreUsuario, e);
         }
     }
 }
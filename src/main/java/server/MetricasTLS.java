@@ -0,0 +1,46 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coste de los handshakes TLS del puerto principal.
+ *
+ * Separa los handshakes completos (certificado + firma) de los reanudados
+ * (ticket o id de sesion): en una avalancha de reconexiones casi todos
+ * deberian ser reanudados y mucho mas baratos.
+ */
+public class MetricasTLS {
+    private static final AtomicLong completos = new AtomicLong();
+    private static final AtomicLong reanudados = new AtomicLong();
+    private static final AtomicLong fallidos = new AtomicLong();
+    private static final AtomicLong nanosCompletos = new AtomicLong();
+    private static final AtomicLong nanosReanudados = new AtomicLong();
+
+    private MetricasTLS() {
+    }
+
+    public static void registrar(boolean reanudado, long nanos) {
+        if (reanudado) {
+            reanudados.incrementAndGet();
+            nanosReanudados.addAndGet(nanos);
+        } else {
+            completos.incrementAndGet();
+            nanosCompletos.addAndGet(nanos);
+        }
+    }
+
+    public static void registrarFallo() {
+        fallidos.incrementAndGet();
+    }
+
+    public static String resumen() {
+        return "TLS: " + completos.get() + " handshakes completos (media " + media(nanosCompletos, completos)
+                + "us), " + reanudados.get() + " reanudados (media " + media(nanosReanudados, reanudados)
+                + "us), " + fallidos.get() + " fallidos";
+    }
+
+    private static long media(AtomicLong nanos, AtomicLong cuenta) {
+        long n = cuenta.get();
+        return n == 0 ? 0 : nanos.get() / n / 1000;
+    }
+}
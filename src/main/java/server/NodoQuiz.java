@@ -0,0 +1,154 @@
+package server;
+
+import model.Pregunta;
+import model.ProtocoloHTTP;
+
+import java.io.*;
+import java.net.*;
+
+/**
+ * Conexion de un ServidorQuiz en modo nodo con el CoordinadorQuiz.
+ * Usa el mismo ProtocoloHTTP que los clientes: el nodo hace de "cliente"
+ * del coordinador.
+ *
+ * Ordenes del coordinador (HTTP Response Type):
+ *   INICIO    total|k                        -> avisar a los jugadores del nodo
+ *   PREGUNTA  ronda|total|preguntaCompleta   -> jugar la ronda y devolver el top-K
+ *   RANKING   ranking global                 -> reenviar a los jugadores
+ *   NEXT / FIN (ranking global final)        -> reenviar a los jugadores
+ *
+ * Peticiones del nodo:
+ *   POST /nodo       nombre del nodo
+ *   POST /jugadores  numero de jugadores conectados
+ *   POST /parcial    ronda|puntos:nombre|puntos:nombre...
+ */
+public class NodoQuiz {
+    private final String host;
+    private final int puerto;
+    private Socket socket;
+    private PrintWriter salida;
+    private BufferedReader entrada;
+    // Tamano del top-K que pide el coordinador
+    private int k = 10;
+
+    public NodoQuiz(String direccion) {
+        int dosPuntos = direccion.lastIndexOf(':');
+        this.host = dosPuntos == -1 ? direccion : direccion.substring(0, dosPuntos);
+        this.puerto = dosPuntos == -1 ? 9090 : Integer.parseInt(direccion.substring(dosPuntos + 1));
+    }
+
+    // Bucle principal del nodo: termina al recibir FIN o al perder el coordinador
+    public void ejecutar() {
+        try {
+            socket = new Socket(host, puerto);
+            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            salida = new PrintWriter(socket.getOutputStream(), true);
+
+            enviar("/nodo", InetAddress.getLocalHost().getHostName() + ":" + socket.getLocalPort());
+            Registro.info("[*] Conectado al coordinador " + host + ":" + puerto);
+            informarJugadores();
+
+            while (true) {
+                String[] orden = ProtocoloHTTP.leerRespuesta(entrada);
+                if (orden == null) {
+                    Registro.aviso("[!] El coordinador ha cerrado la conexion");
+                    break;
+                }
+
+                String tipo = orden[1];
+                String cuerpo = orden[2];
+
+                switch (tipo) {
+                    case "INICIO":
+                        // total|k
+                        String[] inicio = cuerpo.split("\\|");
+                        int totalInicio = inicio.length == 2 ? entero(inicio[0]) : -1;
+                        int kInicio = inicio.length == 2 ? entero(inicio[1]) : -1;
+                        if (totalInicio < 0 || kInicio <= 0) {
+                            Registro.aviso("[!] Orden INICIO invalida del coordinador: " + cuerpo);
+                            break;
+                        }
+                        k = kInicio;
+                        Registro.info("\n[*] JUEGO INICIADO por el coordinador!\n");
+                        ServidorQuiz.getPartida().anunciarInicio(totalInicio);
+                        break;
+
+                    case "PREGUNTA":
+                        jugarRonda(cuerpo);
+                        break;
+
+                    case "RANKING":
+                        Registro.info("\n" + cuerpo);
+                        ServidorQuiz.getPartida().difundirRanking(cuerpo);
+                        break;
+
+                    case "NEXT":
+                        ServidorQuiz.getPartida().difundirNext();
+                        break;
+
+                    case "FIN":
+                        String rankingFinal = "=== RANKING FINAL ===\n" + cuerpo;
+                        Registro.info("\n" + rankingFinal);
+                        ServidorQuiz.getPartida().difundirFin(rankingFinal);
+                        return;
+
+                    default:
+                        Registro.aviso("[!] Orden desconocida del coordinador: " + tipo);
+                        break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Registro.aviso("[!] Error con el coordinador: " + e.getMessage());
+        } finally {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException e) {
+                Registro.error("[!] Error cerrando la conexion con el coordinador", e);
+            }
+        }
+    }
+
+    // Jugar la ronda con los jugadores locales y devolver el top-K del nodo
+    private void jugarRonda(String cuerpo) {
+        // ronda|total|texto|opA|opB|opC|opD|correcta|segundos
+        int primera = cuerpo.indexOf('|');
+        int segunda = primera == -1 ? -1 : cuerpo.indexOf('|', primera + 1);
+        int ronda = segunda == -1 ? -1 : entero(cuerpo.substring(0, primera));
+        int total = segunda == -1 ? -1 : entero(cuerpo.substring(primera + 1, segunda));
+        if (ronda <= 0 || total < ronda) {
+            // Sin responder: el coordinador da la ronda por perdida al vencer el plazo
+            Registro.aviso("[!] Orden PREGUNTA invalida del coordinador: " + cuerpo);
+            return;
+        }
+        Pregunta pregunta = Pregunta.fromMensajeCompleto(cuerpo.substring(segunda + 1));
+        if (pregunta == null) {
+            Registro.aviso("[!] Pregunta invalida del coordinador");
+            return;
+        }
+
+        ServidorQuiz.getPartida().jugarRonda(pregunta, ronda, total);
+        enviar("/parcial", ronda + "|" + EntradaRanking.serializar(ServidorQuiz.getPartida().rankingParcial(k)));
+    }
+
+    // Avisar al coordinador de cuantos jugadores hay en este nodo. La cuenta se
+    // lee con el lock de envio: si dos altas avisan a la vez, el ultimo aviso es el bueno
+    public synchronized void informarJugadores() {
+        enviar("/jugadores", String.valueOf(ServidorQuiz.numeroJugadores()));
+    }
+
+    // Entero del texto, o -1 si no es un numero
+    private static int entero(String texto) {
+        try {
+            return Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Lo usan el hilo del nodo y los manejadores de clientes: una trama cada vez
+    private synchronized void enviar(String ruta, String cuerpo) {
+        if (salida != null) {
+            ProtocoloHTTP.enviarPeticion(salida, "POST", ruta, cuerpo);
+        }
+    }
+}
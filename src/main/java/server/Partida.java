@@ -0,0 +1,274 @@
+package server;
+
+import eventos.EventoPregunta;
+import eventos.EventoRanking;
+import model.PrecargaPregunta;
+import model.Pregunta;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Una partida: sus jugadores, sus tiempos (PlanificadorRondas + Reloj) y las
+ * fases del juego. Antes todo esto eran campos estaticos de ServidorQuiz.
+ *
+ * ServidorQuiz crea una con el reloj real y la consola; SimuladorPartida crea
+ * miles con RelojVirtual y jugadores en memoria.
+ *
+ * Los jugadores se recorren en orden de llegada, asi el orden de los empates
+ * del ranking es siempre el mismo.
+ *
+ * El estado de juego de los jugadores (respuesta, tiempos, puntos) solo lo
+ * escribe el dueno del buzon (BuzonPartida): jugar() lo tiene toda la partida,
+ * y las fases sueltas que usa NodoQuiz lo toman mientras duran.
+ */
+public class Partida {
+    private final Reloj reloj;
+    private final PlanificadorRondas planificador;
+    // Mensajes de consola (null = partida silenciosa)
+    private final Consumer<String> consola;
+    // Respuestas (y demas cambios de estado) que llegan de otros hilos
+    private final BuzonPartida buzon;
+    // Eventos para los navegadores (tipo, datos); null si no hay
+    private BiConsumer<String, String> oyenteEventos;
+    // Enviar cada pregunta cifrada durante el ranking anterior (ver PrecargaPregunta)
+    private boolean precargaActiva = false;
+    // Pregunta de la siguiente ronda ya enviada (null = se envia entera al empezar)
+    private PrecargaPregunta precarga;
+
+    private final Set<Jugador> jugadores = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong((Jugador j) -> j.orden));
+    private final AtomicLong llegadas = new AtomicLong();
+
+    public Partida(boolean automatico, Scanner scannerAdmin, Reloj reloj, Consumer<String> consola) {
+        this.reloj = reloj;
+        this.consola = consola;
+        this.buzon = new BuzonPartida(reloj);
+        this.planificador = new PlanificadorRondas(automatico, scannerAdmin, reloj, consola, buzon);
+    }
+
+    public void setOyenteEventos(BiConsumer<String, String> oyenteEventos) {
+        this.oyenteEventos = oyenteEventos;
+    }
+
+    public void setPrecargaActiva(boolean precargaActiva) {
+        this.precargaActiva = precargaActiva;
+    }
+
+    public Reloj getReloj() { return reloj; }
+
+    public PlanificadorRondas getPlanificador() { return planificador; }
+
+    // ======================== JUGADORES ========================
+
+    public void agregar(Jugador jugador) {
+        jugador.partida = this;
+        jugador.orden = llegadas.incrementAndGet();
+        jugadores.add(jugador);
+    }
+
+    public void quitar(Jugador jugador) {
+        jugadores.remove(jugador);
+        planificador.jugadoresCambiados();
+    }
+
+    public Collection<Jugador> getJugadores() {
+        return Collections.unmodifiableSet(jugadores);
+    }
+
+    public int numeroJugadores() {
+        return jugadores.size();
+    }
+
+    // Evento para el hilo de la partida (lo llama cualquier hilo)
+    void publicar(Runnable evento) {
+        buzon.publicar(evento);
+    }
+
+    // Un jugador respondio a la pregunta actual (dueno del buzon)
+    void clienteRespondio() {
+        planificador.registrarRespuesta();
+    }
+
+    // ======================== PARTIDA COMPLETA ========================
+
+    public void jugar(List<Pregunta> preguntas) {
+        buzon.tomar();
+        try {
+            jugarPreguntas(preguntas);
+        } finally {
+            buzon.soltar();
+        }
+    }
+
+    private void jugarPreguntas(List<Pregunta> preguntas) {
+        // Avisar a todos que empieza el juego
+        anunciarInicio(preguntas.size());
+        precargar(preguntas.get(0), 1, preguntas.size());
+
+        // Pausa breve
+        buzon.atender(2000);
+
+        // Iterar por cada pregunta
+        for (int i = 0; i < preguntas.size(); i++) {
+            jugarRonda(preguntas.get(i), i + 1, preguntas.size());
+            planificador.esperarRevelado();
+
+            // Generar y enviar ranking
+            String ranking = generarRanking();
+            mostrar("\n" + ranking);
+            difundirRanking(ranking);
+
+            // Si no es la ultima pregunta, esperar al admin (NEXT) o al intermedio automatico
+            if (i < preguntas.size() - 1) {
+                // La siguiente pregunta viaja mientras se ve el ranking
+                precargar(preguntas.get(i + 1), i + 2, preguntas.size());
+                planificador.esperarSiguiente();
+                // Avisar a los clientes que se pasa a la siguiente
+                difundirNext();
+                buzon.atender(1000);
+            }
+        }// fin for preguntas
+
+        // Enviar ranking final
+        buzon.atender(2000);
+        String rankingFinal = "=== RANKING FINAL ===\n" + generarRanking();
+        mostrar("\n" + rankingFinal);
+        difundirFin(rankingFinal);
+    }// fin jugarPreguntas
+
+    // ======================== FASES DE LA PARTIDA ========================
+    // Usadas por jugar y, en modo nodo, por NodoQuiz siguiendo al coordinador
+
+    public void anunciarInicio(int totalPreguntas) {
+        String inicio = "El juego va a comenzar! " + totalPreguntas + " preguntas.";
+        for (Jugador jugador : jugadores) {
+            jugador.enviarMensaje("INICIO", inicio);
+        }
+        publicarEvento("INICIO", inicio);
+    }
+
+    // Enviar la pregunta, esperar respuestas y puntuar
+    public void jugarRonda(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
+        buzon.tomar();
+        try {
+            jugarRondaPropia(pregunta, numeroPregunta, totalPreguntas);
+        } finally {
+            buzon.soltar();
+        }
+    }
+
+    private void jugarRondaPropia(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
+        if (consola != null) {
+            // Un solo mensaje: en el registro asincrono no se mezcla con las lineas de otros hilos
+            mostrar("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n"
+                    + "Pregunta " + numeroPregunta + "/" + totalPreguntas + ": " + pregunta.getTexto() + "\n"
+                    + "  A) " + pregunta.getOpcionA() + "\n"
+                    + "  B) " + pregunta.getOpcionB() + "\n"
+                    + "  C) " + pregunta.getOpcionC() + "\n"
+                    + "  D) " + pregunta.getOpcionD() + "\n"
+                    + "  Correcta: " + pregunta.getRespuestaCorrecta() + "\n"
+                    + "  Tiempo: " + pregunta.getTiempoLimite() + "s\n"
+                    + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        }
+
+        // Resetear contador de respuestas y fijar el plazo de la pregunta
+        planificador.iniciarRonda(pregunta);
+
+        // Enviar pregunta a todos (solo la clave a los que ya la tienen precargada)
+        PrecargaPregunta revelar = precarga != null && precarga.getNumero() == numeroPregunta ? precarga : null;
+        precarga = null;
+        EventoPregunta difusion = EventoPregunta.iniciar();
+        int enviadas = 0;
+        for (Jugador jugador : jugadores) {
+            jugador.revelarPregunta(pregunta, numeroPregunta, totalPreguntas, revelar);
+            enviadas++;
+        }
+        publicarEvento("PREGUNTA", Jugador.cuerpoPregunta(pregunta, numeroPregunta, totalPreguntas));
+        difusion.terminar(numeroPregunta, totalPreguntas, enviadas);
+
+        // Esperar a que todos respondan o se acabe el tiempo
+        planificador.esperarRespuestas(jugadores::size);
+
+        // Calcular puntos para esta pregunta y enviar los resultados
+        ProcesadorPuntos.puntuar(pregunta, jugadores, consola);
+    }
+
+    // Enviar cifrada la pregunta de la siguiente ronda; jugarRonda la revela
+    public void precargar(Pregunta pregunta, int numeroPregunta, int totalPreguntas) {
+        if (!precargaActiva) return;
+        buzon.tomar();
+        try {
+            precarga = PrecargaPregunta.cifrar(numeroPregunta,
+                    Jugador.cuerpoPregunta(pregunta, numeroPregunta, totalPreguntas));
+            for (Jugador jugador : jugadores) {
+                jugador.precargarPregunta(precarga);
+            }
+        } finally {
+            buzon.soltar();
+        }
+    }
+
+    public void difundirRanking(String ranking) {
+        for (Jugador jugador : jugadores) {
+            jugador.enviarRanking(ranking);
+        }
+        publicarEvento("RANKING", ranking);
+    }
+
+    public void difundirNext() {
+        for (Jugador jugador : jugadores) {
+            jugador.enviarNext();
+        }
+        publicarEvento("NEXT", "Siguiente pregunta...");
+    }
+
+    public void difundirFin(String rankingFinal) {
+        for (Jugador jugador : jugadores) {
+            jugador.enviarFinJuego(rankingFinal);
+        }
+        publicarEvento("FIN", rankingFinal);
+    }
+
+    // Generar string del ranking ordenado por puntuacion
+    public String generarRanking() {
+        return EntradaRanking.formatear(rankingParcial(Integer.MAX_VALUE));
+    }
+
+    // Los k mejores jugadores, de mayor a menor puntuacion
+    public List<EntradaRanking> rankingParcial(int k) {
+        EventoRanking evento = EventoRanking.iniciar();
+        // Foto de las puntuaciones con todas las rondas aplicadas enteras (las aplica el dueno del buzon)
+        List<EntradaRanking> entradas = new ArrayList<>();
+        buzon.tomar();
+        try {
+            for (Jugador j : jugadores) {
+                entradas.add(new EntradaRanking(j.getNombreUsuario(), j.getPuntuacion()));
+            }
+        } finally {
+            buzon.soltar();
+        }
+        // Ordenar por puntuacion descendente (estable: empates en orden de llegada)
+        entradas.sort((a, b) -> Integer.compare(b.getPuntos(), a.getPuntos()));
+        List<EntradaRanking> ranking = entradas.size() > k ? new ArrayList<>(entradas.subList(0, k)) : entradas;
+        evento.terminar(entradas.size(), ranking.size());
+        return ranking;
+    }
+
+    // ======================== UTILIDADES ========================
+
+    void mostrar(String mensaje) {
+        if (consola != null) {
+            consola.accept(mensaje);
+        }
+    }
+
+    private void publicarEvento(String tipo, String datos) {
+        if (oyenteEventos != null) {
+            oyenteEventos.accept(tipo, datos);
+        }
+    }
+}// fin clase
@@ -0,0 +1,174 @@
+package server;
+
+import model.Configuracion;
+import model.Pregunta;
+
+import java.util.List;
+import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Planificador de la linea de tiempo de cada ronda.
+ *
+ * Fases de una ronda:
+ *   PREGUNTA   -> dura el "Time Limit (sec)" de la pregunta, o menos si todos responden antes
+ *   REVELADO   -> se envian los resultados y se deja un tiempo para verlos
+ *   INTERMEDIO -> se muestra el ranking antes de pasar a la siguiente pregunta
+ *
+ * En modo automatico (-Dquiz.auto=true) el juego avanza solo con los tiempos configurados.
+ * En modo manual se mantiene el comportamiento clasico: el admin escribe NEXT.
+ *
+ * Todas las esperas pasan por el Reloj (real en el servidor, virtual en SimuladorPartida).
+ * Con el buzon de una Partida las esperas lo atienden (ver BuzonPartida): el
+ * contador de respuestas solo lo toca el dueno del buzon y no lleva lock.
+ */
+public class PlanificadorRondas {
+    // Tiempo para ver el resultado antes del ranking (milisegundos)
+    private static final int TIEMPO_REVELADO = Configuracion.entero("quiz.revelado", 3000);
+    // Tiempo mostrando el ranking antes de la siguiente pregunta (milisegundos)
+    private static final int TIEMPO_INTERMEDIO = Configuracion.entero("quiz.intermedio", 5000);
+
+    private final boolean automatico;
+    private final Scanner scannerAdmin;
+    private final Reloj reloj;
+    // Mensajes de consola (null = sin mensajes)
+    private final Consumer<String> consola;
+    // Eventos de la partida (null en CoordinadorQuiz, que no tiene jugadores)
+    private final BuzonPartida buzon;
+
+    // Contador de respuestas de la ronda actual
+    private int respuestasRecibidas = 0;
+    // Instante de inicio y plazo de la ronda actual
+    private long inicioRonda = 0;
+    private long plazoRonda = 0;
+
+    public PlanificadorRondas(boolean automatico, Scanner scannerAdmin) {
+        this(automatico, scannerAdmin, RelojSistema.INSTANCIA, Registro::info);
+    }
+
+    public PlanificadorRondas(boolean automatico, Scanner scannerAdmin, Reloj reloj, Consumer<String> consola) {
+        this(automatico, scannerAdmin, reloj, consola, null);
+    }
+
+    public PlanificadorRondas(boolean automatico, Scanner scannerAdmin, Reloj reloj, Consumer<String> consola,
+                              BuzonPartida buzon) {
+        this.automatico = automatico;
+        this.scannerAdmin = scannerAdmin;
+        this.reloj = reloj;
+        this.consola = consola;
+        this.buzon = buzon;
+    }
+
+    public Reloj getReloj() { return reloj; }
+
+    public boolean isAutomatico() { return automatico; }
+
+    // Duracion estimada de la partida completa (solo informativo)
+    public long duracionEstimada(List<Pregunta> preguntas) {
+        long total = 0;
+        for (Pregunta p : preguntas) {
+            total += p.getTiempoLimiteMs();
+        }
+        if (automatico) {
+            total += (long) preguntas.size() * TIEMPO_REVELADO;
+            total += (long) Math.max(0, preguntas.size() - 1) * TIEMPO_INTERMEDIO;
+        }
+        return total;
+    }
+
+    // ======================== FASE PREGUNTA ========================
+
+    // Empieza una ronda nueva con el plazo de la pregunta
+    public void iniciarRonda(Pregunta pregunta) {
+        respuestasRecibidas = 0;
+        inicioRonda = reloj.ahoraMs();
+        plazoRonda = inicioRonda + pregunta.getTiempoLimiteMs();
+    }
+
+    // Llamado (por el dueno del buzon) cuando un jugador responde
+    public void registrarRespuesta() {
+        respuestasRecibidas++;
+    }
+
+    // Llamado cuando cambia el numero de jugadores (alguien se desconecta)
+    public void jugadoresCambiados() {
+        if (buzon != null) {
+            buzon.despertar();
+        }
+    }
+
+    /**
+     * Espera a que todos respondan o a que venza el plazo de la pregunta,
+     * atendiendo el buzon (solo Partida, que es su duena).
+     * Devuelve true si la ronda se cerro antes de tiempo porque respondieron todos.
+     */
+    public boolean esperarRespuestas(IntSupplier jugadores) {
+        while (true) {
+            buzon.vaciar();
+            if (respuestasRecibidas >= jugadores.getAsInt()) {
+                mostrar("  Todos han respondido! (" + (reloj.ahoraMs() - inicioRonda) + "ms)");
+                return true;
+            }
+            long restante = plazoRonda - reloj.ahoraMs();
+            if (restante <= 0) {
+                mostrar("  Tiempo agotado!");
+                return false;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            buzon.esperarEvento(restante);
+        }
+    }
+
+    // ======================== FASES REVELADO E INTERMEDIO ========================
+
+    // Pausa entre los resultados y el ranking (solo en modo automatico)
+    public void esperarRevelado() {
+        if (automatico) {
+            dormir(TIEMPO_REVELADO);
+        }
+    }
+
+    // Pausa entre el ranking y la siguiente pregunta
+    public void esperarSiguiente() {
+        if (automatico) {
+            mostrar("\n[*] Siguiente pregunta en " + (TIEMPO_INTERMEDIO / 1000) + "s");
+            dormir(TIEMPO_INTERMEDIO);
+            return;
+        }
+        mostrar("\n[*] Escribe NEXT para pasar a la siguiente pregunta");
+        if (buzon != null) {
+            // Mientras el admin no escribe, las respuestas las atiende quien las recibe
+            buzon.soltarDurante(this::esperarNext);
+        } else {
+            esperarNext();
+        }
+    }
+
+    private void esperarNext() {
+        while (true) {
+            String cmd = scannerAdmin.nextLine();
+            if (cmd.equalsIgnoreCase("NEXT")) {
+                break;
+            }
+            mostrar("[!] Escribe NEXT para continuar");
+        }
+    }
+
+    // Pausa atendiendo el buzon si lo hay
+    private void dormir(long milisegundos) {
+        if (buzon != null) {
+            buzon.atender(milisegundos);
+        } else {
+            reloj.dormir(milisegundos);
+        }
+    }
+
+    private void mostrar(String mensaje) {
+        if (consola != null) {
+            consola.accept(mensaje);
+        }
+    }
+}
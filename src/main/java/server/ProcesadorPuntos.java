@@ -0,0 +1,98 @@
+package server;
+
+import eventos.EventoPuntuacion;
+import model.Configuracion;
+import model.Pregunta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Puntuacion de una ronda en tres pasos:
+ *   1. Calcular los puntos de todos los jugadores (en paralelo si son muchos).
+ *      Solo se leen las respuestas, no se modifica nada.
+ *   2. Aplicar todos los puntos de golpe. Lo hace el dueno del buzon de la
+ *      partida (ver BuzonPartida), asi nadie ve un ranking con la ronda a medias.
+ *   3. Entregar los RESULTADO de forma asincrona: cada jugador los recibe por su
+ *      cola de envio (ver EjecutorSerie), sin esperar a los sockets lentos.
+ */
+public class ProcesadorPuntos {
+    // Puntos maximos por respuesta correcta (disminuyen segun tiempo)
+    public static final int PUNTOS_MAX = 1000;
+    // Puntos minimos por acertar al final del tiempo limite
+    public static final int PUNTOS_MIN = 100;
+    // A partir de cuantos jugadores compensa calcular en paralelo
+    private static final int UMBRAL_PARALELO = Configuracion.entero("quiz.puntos.umbralParalelo", 2048);
+
+    // Puntos de un jugador en la ronda (0 si fallo o no respondio)
+    private static class Resultado {
+        final Jugador jugador;
+        final int puntos;
+        final boolean correcta;
+
+        Resultado(Jugador jugador, boolean correcta, int puntos) {
+            this.jugador = jugador;
+            this.correcta = correcta;
+            this.puntos = puntos;
+        }
+    }
+
+    /**
+     * Puntuar la ronda y lanzar el envio de resultados. Solo desde el dueno
+     * del buzon de la partida; consola puede ser null.
+     * Devuelve la duracion de la fase de puntuacion (nanosegundos).
+     */
+    public static long puntuar(Pregunta pregunta, Collection<Jugador> clientes, Consumer<String> consola) {
+        EventoPuntuacion evento = EventoPuntuacion.iniciar();
+        long inicio = System.nanoTime();
+        List<Jugador> jugadores = new ArrayList<>(clientes);
+        boolean paralelo = jugadores.size() >= UMBRAL_PARALELO;
+
+        // 1. Calculo (sin efectos)
+        List<Resultado> resultados = (paralelo
+                ? jugadores.parallelStream()
+                : jugadores.stream())
+                .map(j -> calcular(pregunta, j))
+                .collect(Collectors.toList());
+        long calculado = System.nanoTime();
+
+        // 2. Aplicar al ranking de una vez
+        for (Resultado r : resultados) {
+            if (r.puntos > 0) {
+                r.jugador.sumarPuntos(r.puntos);
+            }
+        }
+        long aplicado = System.nanoTime();
+
+        // 3. Entrega asincrona (cada Jugador encola su RESULTADO)
+        int aciertos = 0;
+        for (Resultado r : resultados) {
+            r.jugador.enviarResultado(r.correcta, r.puntos);
+            if (r.correcta) aciertos++;
+        }
+        long fin = System.nanoTime();
+        evento.terminar(jugadores.size(), aciertos, paralelo);
+
+        if (consola != null) {
+            consola.accept("  Puntuacion: " + jugadores.size() + " jugadores en " + (fin - inicio) / 1000 + "us"
+                    + " (calculo " + (calculado - inicio) / 1000 + "us, aplicar " + (aplicado - calculado) / 1000
+                    + "us, encolar resultados " + (fin - aplicado) / 1000 + "us)");
+        }
+        return fin - inicio;
+    }
+
+    // Puntos inversamente proporcionales al tiempo de respuesta
+    // Respuesta instantanea = PUNTOS_MAX, respuesta al final del tiempo limite = ~PUNTOS_MIN
+    private static Resultado calcular(Pregunta pregunta, Jugador jugador) {
+        if (jugador.haRespondido() && jugador.getRespuestaActual() == pregunta.getRespuestaCorrecta()) {
+            long tiempo = jugador.getTiempoRespuesta();
+            int puntos = (int) Math.max(PUNTOS_MIN,
+                    PUNTOS_MAX - (tiempo * (PUNTOS_MAX - PUNTOS_MIN) / pregunta.getTiempoLimiteMs()));
+            return new Resultado(jugador, true, puntos);
+        }
+        return new Resultado(jugador, false, 0);
+    }
+}
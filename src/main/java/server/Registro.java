@@ -0,0 +1,183 @@
+package server;
+
+import model.Configuracion;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro asincrono de la consola del servidor.
+ *
+ * System.out.println esta sincronizado: con muchos jugadores los hilos de
+ * los manejadores hacian cola en stdout justo cuando se cronometran las
+ * respuestas. Aqui cada linea se deja en un anillo sin locks (varios
+ * productores, un consumidor) y un hilo aparte la escribe en lotes.
+ *
+ * Si el anillo esta lleno la linea se descarta y se cuenta: nunca se
+ * bloquea al juego. El escritor avisa de cuantas se perdieron.
+ *
+ * Propiedades:
+ *   quiz.log.nivel      DEBUG, INFO, AVISO o ERROR (INFO)
+ *   quiz.log.capacidad  lineas en el anillo, se redondea a potencia de 2 (8192)
+ */
+public class Registro {
+    public enum Nivel { DEBUG, INFO, AVISO, ERROR }
+
+    private static final Nivel NIVEL = nivelConfigurado();
+    private static final int CAPACIDAD = Integer.highestOneBit(
+            Math.max(2, Configuracion.entero("quiz.log.capacidad", 8192) * 2 - 1));
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    // Anillo: la secuencia de cada hueco dice si esta libre (== posicion) o lleno (== posicion + 1)
+    private static final String[] lineas = new String[CAPACIDAD];
+    private static final AtomicLongArray secuencias = new AtomicLongArray(CAPACIDAD);
+    private static final AtomicLong escritura = new AtomicLong();
+    // Solo la toca el hilo escritor; leidasPublicadas es lo ya escrito en destino (para vaciar)
+    private static long lectura = 0;
+    private static volatile long leidasPublicadas = 0;
+
+    private static final AtomicLong descartadas = new AtomicLong();
+    private static long descartadasAvisadas = 0;
+
+    private static final PrintStream destino = System.out;
+    private static final Thread escritor;
+    private static volatile boolean durmiendo = false;
+
+    static {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            secuencias.set(i, i);
+        }
+        escritor = new Thread(Registro::bucle, "registro");
+        escritor.setDaemon(true);
+        escritor.start();
+        // Que no se pierdan las ultimas lineas si se mata el proceso
+        Runtime.getRuntime().addShutdownHook(new Thread(Registro::vaciar));
+    }
+
+    private Registro() {
+    }
+
+    public static boolean activo(Nivel nivel) {
+        return nivel.compareTo(NIVEL) >= 0;
+    }
+
+    public static void debug(String mensaje) {
+        registrar(Nivel.DEBUG, mensaje);
+    }
+
+    public static void info(String mensaje) {
+        registrar(Nivel.INFO, mensaje);
+    }
+
+    public static void aviso(String mensaje) {
+        registrar(Nivel.AVISO, mensaje);
+    }
+
+    public static void error(String mensaje, Throwable causa) {
+        if (!activo(Nivel.ERROR)) return;
+        StringWriter traza = new StringWriter();
+        causa.printStackTrace(new PrintWriter(traza));
+        registrar(Nivel.ERROR, mensaje + "\n" + traza.toString().trim());
+    }
+
+    public static void registrar(Nivel nivel, String mensaje) {
+        if (!activo(nivel)) return;
+        long posicion = escritura.get();
+        while (true) {
+            int hueco = (int) posicion & MASCARA;
+            long diferencia = secuencias.get(hueco) - posicion;
+            if (diferencia == 0) {
+                if (escritura.compareAndSet(posicion, posicion + 1)) {
+                    break;
+                }
+                posicion = escritura.get();
+            } else if (diferencia < 0) {
+                // Lleno: el escritor va una vuelta entera por detras
+                descartadas.incrementAndGet();
+                return;
+            } else {
+                posicion = escritura.get();
+            }
+        }
+        int hueco = (int) posicion & MASCARA;
+        lineas[hueco] = mensaje;
+        secuencias.set(hueco, posicion + 1);
+        if (durmiendo) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    public static long getDescartadas() {
+        return descartadas.get();
+    }
+
+    // Esperar (como mucho 2 s) a que se escriba todo lo pendiente
+    public static void vaciar() {
+        long limite = System.nanoTime() + 2_000_000_000L;
+        long objetivo = escritura.get();
+        LockSupport.unpark(escritor);
+        while (leidasPublicadas < objetivo && System.nanoTime() < limite) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        destino.flush();
+    }
+
+    // ======================== HILO ESCRITOR ========================
+
+    private static void bucle() {
+        StringBuilder lote = new StringBuilder();
+        while (true) {
+            if (!escribirLote(lote)) {
+                durmiendo = true;
+                // Volver a mirar tras anunciar que duerme: si no, se perderia el unpark
+                if (!hayPendientes()) {
+                    LockSupport.parkNanos(100_000_000);
+                }
+                durmiendo = false;
+            }
+        }
+    }
+
+    private static boolean hayPendientes() {
+        return secuencias.get((int) lectura & MASCARA) == lectura + 1;
+    }
+
+    // Escribir de una vez todas las lineas disponibles; false si no habia ninguna
+    private static boolean escribirLote(StringBuilder lote) {
+        lote.setLength(0);
+        while (hayPendientes()) {
+            int hueco = (int) lectura & MASCARA;
+            lote.append(lineas[hueco]).append('\n');
+            lineas[hueco] = null;
+            secuencias.set(hueco, lectura + CAPACIDAD);
+            lectura++;
+        }
+        long perdidas = descartadas.get();
+        if (perdidas != descartadasAvisadas) {
+            lote.append("[!] Registro: ").append(perdidas - descartadasAvisadas)
+                    .append(" lineas descartadas (anillo lleno)\n");
+            descartadasAvisadas = perdidas;
+        }
+        if (lote.length() == 0) {
+            return false;
+        }
+        destino.print(lote);
+        destino.flush();
+        leidasPublicadas = lectura;
+        return true;
+    }
+
+    private static Nivel nivelConfigurado() {
+        String nombre = Configuracion.texto("quiz.log.nivel", "INFO");
+        try {
+            return Nivel.valueOf(nombre.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("[!] Valor invalido para quiz.log.nivel: " + nombre + " (se usa INFO)");
+            return Nivel.INFO;
+        }
+    }
+}// fin clase
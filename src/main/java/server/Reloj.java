@@ -0,0 +1,21 @@
+package server;
+
+/**
+ * Fuente de tiempo de la partida.
+ *
+ * El servidor usa RelojSistema (tiempo real, Thread.sleep y Object.wait).
+ * SimuladorPartida usa RelojVirtual: el tiempo avanza de golpe hasta el
+ * siguiente evento programado, asi una partida entera dura microsegundos
+ * y siempre da el mismo resultado.
+ */
+public interface Reloj {
+
+    // Milisegundos desde un origen cualquiera (solo sirven las diferencias)
+    long ahoraMs();
+
+    // Pausa sin mas (si se interrumpe, vuelve antes y deja el flag puesto)
+    void dormir(long milisegundos);
+
+    // monitor.wait(milisegundos): el que llama tiene el lock del monitor
+    void esperar(Object monitor, long milisegundos) throws InterruptedException;
+}
@@ -0,0 +1,30 @@
+package server;
+
+/**
+ * Reloj de tiempo real (el de siempre del servidor).
+ */
+public class RelojSistema implements Reloj {
+    public static final RelojSistema INSTANCIA = new RelojSistema();
+
+    private RelojSistema() {
+    }
+
+    @Override
+    public long ahoraMs() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void dormir(long milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void esperar(Object monitor, long milisegundos) throws InterruptedException {
+        monitor.wait(milisegundos);
+    }
+}
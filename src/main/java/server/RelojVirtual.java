@@ -0,0 +1,84 @@
+package server;
+
+import java.util.PriorityQueue;
+
+/**
+ * Reloj simulado para SimuladorPartida.
+ *
+ * Los jugadores simulados programan sus acciones (responder a los X ms) y
+ * el tiempo solo avanza cuando la partida espera: dormir() y esperar()
+ * ejecutan en orden los eventos que caen dentro de la espera y saltan al
+ * instante final sin dormir de verdad.
+ *
+ * No es thread-safe: la partida y sus eventos corren en un unico hilo.
+ * Eventos en el mismo instante se ejecutan en el orden en que se programaron.
+ */
+public class RelojVirtual implements Reloj {
+    private long ahora = 0;
+    private long secuencia = 0;
+    private final PriorityQueue<Evento> eventos = new PriorityQueue<>();
+
+    private static class Evento implements Comparable<Evento> {
+        final long instante;
+        final long orden;
+        final Runnable accion;
+
+        Evento(long instante, long orden, Runnable accion) {
+            this.instante = instante;
+            this.orden = orden;
+            this.accion = accion;
+        }
+
+        @Override
+        public int compareTo(Evento otro) {
+            if (instante != otro.instante) {
+                return Long.compare(instante, otro.instante);
+            }
+            return Long.compare(orden, otro.orden);
+        }
+    }
+
+    // Ejecutar la accion dentro de retardoMs milisegundos de tiempo simulado
+    public void programar(long retardoMs, Runnable accion) {
+        eventos.add(new Evento(ahora + Math.max(0, retardoMs), secuencia++, accion));
+    }
+
+    public int getPendientes() {
+        return eventos.size();
+    }
+
+    @Override
+    public long ahoraMs() {
+        return ahora;
+    }
+
+    @Override
+    public void dormir(long milisegundos) {
+        long fin = ahora + milisegundos;
+        while (!eventos.isEmpty() && eventos.peek().instante <= fin) {
+            ejecutar(eventos.poll());
+        }
+        ahora = fin;
+    }
+
+    // Como un wait: vuelve tras los eventos del primer instante que cae en el
+    // plazo (el que llama vuelve a comprobar su condicion) o al vencer el plazo.
+    // Todos los eventos de un mismo instante van juntos: dos respuestas en el
+    // ultimo milisegundo cuentan las dos.
+    @Override
+    public void esperar(Object monitor, long milisegundos) {
+        Evento siguiente = eventos.peek();
+        if (siguiente != null && siguiente.instante <= ahora + milisegundos) {
+            do {
+                ejecutar(eventos.poll());
+            } while (!eventos.isEmpty() && eventos.peek().instante == siguiente.instante);
+        } else {
+            ahora += milisegundos;
+        }
+    }
+
+    private void ejecutar(Evento evento) {
+        ahora = Math.max(ahora, evento.instante);
+        evento.accion.run();
+    }
+}
@@ -0,0 +1,682 @@
+package server;
+
+import model.Configuracion;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Servidor HTTP/1.1 real para navegadores (puerto 8081 por defecto, -Dquiz.http.puerto).
+ * Permite seguir o jugar la partida sin ClienteQuiz.
+ *
+ * Rutas:
+ *   GET  /                    -> pagina HTML sencilla (web/quiz.html)
+ *   GET  /eventos             -> stream SSE (text/event-stream) con los eventos del juego
+ *   GET  /eventos?nombre=Ana  -> igual, pero ademas registra al navegador como jugador.
+ *                                El primer evento (BIENVENIDA) trae "id|mensaje"
+ *   POST /respuesta           -> cuerpo "id=ID&respuesta=A" (x-www-form-urlencoded)
+ *
+ * Cada evento se codifica UNA sola vez como chunk HTTP (Transfer-Encoding: chunked)
+ * y esos mismos bytes se encolan en todos los suscriptores.
+ *
+ * Un unico hilo con un Selector ("http-selector"):
+ *   - escribe los streams SSE sin bloquear. Cada suscriptor tiene su cola
+ *     acotada; lo que no cabe en el socket espera a OP_WRITE. Un navegador
+ *     que se queda atras (cola llena) o que no avanza en quiz.sse.plazo ms se
+ *     desconecta, asi un stream atascado no retrasa a los demas.
+ *   - vigila las conexiones keep-alive inactivas. Solo cuando llega una
+ *     peticion se pasan a un hilo de "http", que la lee, contesta y la devuelve.
+ *
+ * Propiedades:
+ *   quiz.http.hilos       hilos que leen y contestan peticiones (4)
+ *   quiz.sse.pendientes   eventos encolados por suscriptor antes de cortarlo (256)
+ *   quiz.sse.plazo        ms que puede estar un stream sin avanzar (10000)
+ */
+public class ServidorEventos {
+    // Hilos para leer peticiones (ni los streams SSE ni el keep-alive ocupan hilo)
+    private static final int HILOS_PETICIONES = Configuracion.entero("quiz.http.hilos", 4);
+    private static final int MAX_PENDIENTES = Math.max(1, Configuracion.entero("quiz.sse.pendientes", 256));
+    private static final long PLAZO_ESCRITURA = Configuracion.entero("quiz.sse.plazo", 10000) * 1_000_000L;
+    // Cierre de conexiones keep-alive inactivas (milisegundos)
+    private static final long INACTIVIDAD = 30000 * 1_000_000L;
+    // Tiempo para terminar de recibir una peticion ya empezada (milisegundos)
+    private static final int TIMEOUT_PETICION = 5000;
+    // Lo que se espera a que la partida procese un POST /respuesta (milisegundos)
+    private static final int ESPERA_RESPUESTA = 5000;
+    // Cada cuanto se revisan los plazos
+    private static final int REVISION = 1000;
+    // Comentario SSE periodico para mantener vivas las conexiones y detectar caidas
+    private static final int INTERVALO_LATIDO = 15000;
+    // Limite de una linea de cabecera y del cuerpo de una peticion
+    private static final int MAX_LINEA = 8192;
+    private static final int MAX_CUERPO = 4096;
+
+    private static final byte[] LATIDO = codificarChunk(": ping\n\n");
+
+    private final int puerto;
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final Map<String, JugadorWeb> jugadoresWeb = new ConcurrentHashMap<>();
+    private final ExecutorService peticiones = Executors.newFixedThreadPool(HILOS_PETICIONES, hiloDaemon("http"));
+    private final ScheduledExecutorService latido = Executors.newSingleThreadScheduledExecutor(hiloDaemon("sse-latido"));
+    // Trabajo para el hilo del selector (difusiones, registros)
+    private final Queue<Runnable> tareas = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer descarte = ByteBuffer.allocate(512);
+    private ServerSocketChannel serverSocket;
+    private Selector selector;
+    private Thread hiloSelector;
+    // Instante (nanoTime) limite para vaciar las colas al cerrar; 0 si no se esta cerrando
+    private volatile long cierre = 0;
+
+    public ServidorEventos(int puerto) {
+        this.puerto = puerto;
+    }
+
+    // Conexion SSE abierta (espectador o jugador web). Solo la toca el hilo del selector
+    public static class Suscriptor {
+        private final SocketChannel canal;
+        private final ArrayDeque<ByteBuffer> pendientes = new ArrayDeque<>();
+        private SelectionKey clave;
+        private boolean esperaEscritura = false;
+        // Ultima vez que el socket acepto bytes teniendo algo pendiente
+        private long ultimoAvance;
+        private JugadorWeb jugador;
+
+        private Suscriptor(SocketChannel canal) {
+            this.canal = canal;
+        }
+    }
+
+    // Conexion HTTP normal; sus streams solo se usan en modo bloqueante desde un hilo "http"
+    private static class Conexion {
+        final SocketChannel canal;
+        final InputStream entrada;
+        final OutputStream salida;
+        long inactivaDesde;
+
+        Conexion(SocketChannel canal) throws IOException {
+            this.canal = canal;
+            this.entrada = new BufferedInputStream(canal.socket().getInputStream());
+            this.salida = new BufferedOutputStream(canal.socket().getOutputStream());
+        }
+    }
+
+    // Peticion HTTP ya parseada
+    private static class Peticion {
+        String metodo;
+        String ruta;
+        Map<String, String> parametros = new HashMap<>();
+        Map<String, String> cabeceras = new HashMap<>();
+        String cuerpo = "";
+        boolean keepAlive;
+    }
+
+    // ======================== ARRANQUE Y CIERRE ========================
+
+    public void iniciar() throws IOException {
+        selector = Selector.open();
+        serverSocket = ServerSocketChannel.open();
+        serverSocket.bind(new InetSocketAddress(puerto));
+
+        hiloSelector = new Thread(this::bucleSelector, "http-selector");
+        hiloSelector.setDaemon(true);
+        hiloSelector.start();
+
+        Thread hiloAceptar = new Thread(() -> {
+            while (serverSocket.isOpen()) {
+                try {
+                    SocketChannel canal = serverSocket.accept();
+                    Conexion conexion = new Conexion(canal);
+                    canal.configureBlocking(false);
+                    esperar(conexion);
+                } catch (ClosedChannelException e) {
+                    // cerrar()
+                } catch (IOException e) {
+                    if (serverSocket.isOpen()) {
+                        Registro.aviso("[!] Error aceptando conexion HTTP: " + e.getMessage());
+                    }
+                }
+            }
+        }, "http-aceptar");
+        hiloAceptar.setDaemon(true);
+        hiloAceptar.start();
+
+        latido.scheduleAtFixedRate(() -> difundir(LATIDO),
+                INTERVALO_LATIDO, INTERVALO_LATIDO, TimeUnit.MILLISECONDS);
+        Registro.info("[*] Eventos HTTP/SSE en http://localhost:" + puerto + "/");
+    }
+
+    // Vaciar los eventos pendientes (como mucho 5 s) y cerrar todas las conexiones
+    public void cerrar() {
+        latido.shutdownNow();
+        cerrarCanal(serverSocket);
+        cierre = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        selector.wakeup();
+        try {
+            hiloSelector.join(6000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        peticiones.shutdownNow();
+    }
+
+    public int getSuscriptores() { return suscriptores.size(); }
+
+    // ======================== PUBLICAR EVENTOS ========================
+
+    // Publicar un evento para todos: se codifica una sola vez
+    public void publicar(String tipo, String datos) {
+        difundir(codificarEvento(tipo, datos));
+    }
+
+    // Enviar un evento solo a un suscriptor (mensajes personales de un jugador web)
+    public void enviarA(Suscriptor suscriptor, String tipo, String datos) {
+        byte[] trama = codificarEvento(tipo, datos);
+        ejecutar(() -> encolar(suscriptor, trama));
+    }
+
+    private void difundir(byte[] trama) {
+        ejecutar(() -> {
+            for (Suscriptor s : suscriptores) {
+                encolar(s, trama);
+            }
+        });
+    }
+
+    private void ejecutar(Runnable tarea) {
+        tareas.offer(tarea);
+        selector.wakeup();
+    }
+
+    // ======================== HILO DEL SELECTOR ========================
+
+    private void bucleSelector() {
+        try {
+            while (true) {
+                selector.select(REVISION);
+                Runnable tarea;
+                while ((tarea = tareas.poll()) != null) {
+                    tarea.run();
+                }
+                atenderListos();
+                long ahora = System.nanoTime();
+                revisarPlazos(ahora);
+                if (cierre != 0 && ((tareas.isEmpty() && nadaPendiente()) || ahora - cierre > 0)) {
+                    break;
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            Registro.error("[!] Error en el selector HTTP", e);
+        } finally {
+            for (SelectionKey clave : selector.keys()) {
+                cerrarCanal(clave.channel());
+            }
+            suscriptores.clear();
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // ya cerrado
+            }
+        }
+    }
+
+    private void atenderListos() throws IOException {
+        List<Conexion> despiertas = new ArrayList<>();
+        do {
+            despiertas.clear();
+            for (SelectionKey clave : selector.selectedKeys()) {
+                if (!clave.isValid()) continue;
+                if (clave.attachment() instanceof Suscriptor) {
+                    Suscriptor s = (Suscriptor) clave.attachment();
+                    if (clave.isWritable()) escribir(s);
+                    if (clave.isValid() && clave.isReadable()) leerDescartando(s);
+                } else {
+                    // Llega una peticion: la conexion sale del selector y pasa a un hilo "http"
+                    clave.cancel();
+                    despiertas.add((Conexion) clave.attachment());
+                }
+            }
+            selector.selectedKeys().clear();
+            if (!despiertas.isEmpty()) {
+                // Quitar del selector las claves canceladas para poder volver a modo bloqueante
+                selector.selectNow();
+                for (Conexion c : despiertas) {
+                    despachar(c);
+                }
+            }
+        } while (!despiertas.isEmpty());
+    }
+
+    private void despachar(Conexion c) {
+        try {
+            c.canal.configureBlocking(true);
+            peticiones.execute(() -> atender(c));
+        } catch (IOException | RejectedExecutionException e) {
+            cerrarCanal(c.canal);
+        }
+    }
+
+    // Devolver una conexion keep-alive al selector hasta su siguiente peticion
+    private void esperar(Conexion c) {
+        ejecutar(() -> {
+            try {
+                c.canal.configureBlocking(false);
+                c.canal.register(selector, SelectionKey.OP_READ, c);
+                c.inactivaDesde = System.nanoTime();
+            } catch (IOException e) {
+                cerrarCanal(c.canal);
+            }
+        });
+    }
+
+    private void revisarPlazos(long ahora) {
+        for (SelectionKey clave : selector.keys()) {
+            if (!clave.isValid()) continue;
+            if (clave.attachment() instanceof Suscriptor) {
+                Suscriptor s = (Suscriptor) clave.attachment();
+                if (!s.pendientes.isEmpty() && ahora - s.ultimoAvance > PLAZO_ESCRITURA) {
+                    Registro.aviso("[!] Stream SSE atascado, se desconecta " + descripcion(s));
+                    quitar(s);
+                }
+            } else if (ahora - ((Conexion) clave.attachment()).inactivaDesde > INACTIVIDAD) {
+                clave.cancel();
+                cerrarCanal(clave.channel());
+            }
+        }
+    }
+
+    private boolean nadaPendiente() {
+        for (Suscriptor s : suscriptores) {
+            if (!s.pendientes.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private void registrar(Suscriptor s) throws IOException {
+        suscriptores.add(s);
+        s.clave = s.canal.register(selector, SelectionKey.OP_READ, s);
+    }
+
+    private void encolar(Suscriptor s, byte[] trama) {
+        if (!s.canal.isOpen()) return;
+        if (s.pendientes.size() >= MAX_PENDIENTES) {
+            Registro.aviso("[!] Stream SSE demasiado lento, se desconecta " + descripcion(s));
+            quitar(s);
+            return;
+        }
+        boolean vacia = s.pendientes.isEmpty();
+        s.pendientes.add(ByteBuffer.wrap(trama));
+        if (vacia) {
+            s.ultimoAvance = System.nanoTime();
+            escribir(s);
+        }
+    }
+
+    // Escribir lo que quepa sin bloquear; el resto espera a OP_WRITE
+    private void escribir(Suscriptor s) {
+        try {
+            ByteBuffer trama;
+            while ((trama = s.pendientes.peek()) != null) {
+                if (s.canal.write(trama) > 0) {
+                    s.ultimoAvance = System.nanoTime();
+                }
+                if (trama.hasRemaining()) {
+                    interesEscritura(s, true);
+                    return;
+                }
+                s.pendientes.poll();
+            }
+            interesEscritura(s, false);
+        } catch (IOException | CancelledKeyException e) {
+            quitar(s);
+        }
+    }
+
+    private static void interesEscritura(Suscriptor s, boolean activo) {
+        if (s.esperaEscritura != activo) {
+            s.esperaEscritura = activo;
+            s.clave.interestOps(activo ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    // Un navegador no envia nada por el stream; leer solo sirve para ver que lo cerro
+    private void leerDescartando(Suscriptor s) {
+        try {
+            descarte.clear();
+            if (s.canal.read(descarte) == -1) {
+                quitar(s);
+            }
+        } catch (IOException e) {
+            quitar(s);
+        }
+    }
+
+    private void quitar(Suscriptor s) {
+        if (!suscriptores.remove(s)) return;
+        s.pendientes.clear();
+        cerrarCanal(s.canal);
+        if (s.jugador != null) {
+            jugadoresWeb.remove(s.jugador.getId());
+            ServidorQuiz.removerCliente(s.jugador);
+            Registro.info("[-] " + s.jugador.getNombreUsuario() + " (web) se ha desconectado");
+        }
+    }
+
+    private static String descripcion(Suscriptor s) {
+        return s.jugador != null ? s.jugador.getNombreUsuario() + " (web)" : "(espectador)";
+    }
+
+    // "event: TIPO\ndata: linea\n...\n\n" envuelto en un chunk HTTP
+    static byte[] codificarEvento(String tipo, String datos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("event: ").append(tipo).append('\n');
+        for (String linea : (datos == null ? "" : datos).split("\n", -1)) {
+            sb.append("data: ").append(linea).append('\n');
+        }
+        sb.append('\n');
+        return codificarChunk(sb.toString());
+    }
+
+    private static byte[] codificarChunk(String texto) {
+        byte[] datos = texto.getBytes(StandardCharsets.UTF_8);
+        byte[] cabecera = (Integer.toHexString(datos.length) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] chunk = new byte[cabecera.length + datos.length + 2];
+        System.arraycopy(cabecera, 0, chunk, 0, cabecera.length);
+        System.arraycopy(datos, 0, chunk, cabecera.length, datos.length);
+        chunk[chunk.length - 2] = '\r';
+        chunk[chunk.length - 1] = '\n';
+        return chunk;
+    }
+
+    // ======================== ATENDER PETICIONES ========================
+
+    // Un hilo "http" atiende las peticiones que ya han llegado y devuelve la conexion
+    private void atender(Conexion c) {
+        try {
+            c.canal.socket().setSoTimeout(TIMEOUT_PETICION);
+            while (true) {
+                Peticion peticion = leerPeticion(c.entrada);
+                if (peticion == null) break;
+
+                if (peticion.metodo.equals("GET") && peticion.ruta.equals("/eventos")) {
+                    abrirStream(c, peticion);
+                    return; // la conexion pasa al selector como suscriptor
+                }
+
+                if (peticion.metodo.equals("POST") && peticion.ruta.equals("/respuesta")) {
+                    if (procesarRespuesta(c, peticion)) {
+                        return; // se contesta cuando la partida la procese
+                    }
+                } else if (peticion.metodo.equals("GET") && (peticion.ruta.equals("/") || peticion.ruta.equals("/index.html"))) {
+                    enviarPagina(c.salida, peticion.keepAlive);
+                } else {
+                    enviarTexto(c.salida, 404, "Not Found", "Ruta no encontrada", peticion.keepAlive);
+                }
+
+                if (!peticion.keepAlive) break;
+                // Si la siguiente peticion no ha llegado, la espera el selector y no este hilo
+                if (c.entrada.available() == 0) {
+                    esperar(c);
+                    return;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // peticion a medias que no se termino de enviar
+        } catch (IOException e) {
+            // el navegador cerro la conexion
+        }
+        cerrarCanal(c.canal);
+    }
+
+    private void abrirStream(Conexion c, Peticion peticion) throws IOException {
+        String cabeceras = "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/event-stream; charset=utf-8\r\n"
+                + "Cache-Control: no-cache\r\n"
+                + "Connection: keep-alive\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "Access-Control-Allow-Origin: *\r\n"
+                + "\r\n";
+        c.salida.write(cabeceras.getBytes(StandardCharsets.US_ASCII));
+        c.salida.flush();
+        c.canal.configureBlocking(false);
+
+        Suscriptor suscriptor = new Suscriptor(c.canal);
+        String nombre = peticion.parametros.get("nombre");
+        if (nombre != null && !nombre.trim().isEmpty()) {
+            nombre = nombre.trim().replace("|", "");
+            String id = UUID.randomUUID().toString();
+            JugadorWeb jugador = new JugadorWeb(id, nombre, this, suscriptor);
+            suscriptor.jugador = jugador;
+            jugadoresWeb.put(id, jugador);
+            String bienvenida = id + "|Bienvenido " + nombre + "! Esperando a que comience el juego...";
+            // La BIENVENIDA queda encolada antes que cualquier difusion posterior
+            ejecutar(() -> {
+                try {
+                    registrar(suscriptor);
+                    encolar(suscriptor, codificarEvento("BIENVENIDA", bienvenida));
+                } catch (IOException e) {
+                    quitar(suscriptor);
+                }
+            });
+
+            Registro.info("[+] " + nombre + " (web) se ha conectado desde " + c.canal.socket().getInetAddress());
+            ServidorQuiz.agregarJugador(jugador);
+        } else {
+            ejecutar(() -> {
+                try {
+                    registrar(suscriptor);
+                } catch (IOException e) {
+                    quitar(suscriptor);
+                }
+            });
+        }
+    }
+
+    // true si la conexion ya no sigue en atender(): respuesta pendiente de la partida o cerrada
+    private boolean procesarRespuesta(Conexion c, Peticion peticion) throws IOException {
+        Map<String, String> formulario = new HashMap<>(peticion.parametros);
+        parsearParametros(peticion.cuerpo, formulario);
+
+        JugadorWeb jugador = formulario.get("id") == null ? null : jugadoresWeb.get(formulario.get("id"));
+        if (jugador == null) {
+            enviarTexto(c.salida, 404, "Not Found", "Jugador desconocido", peticion.keepAlive);
+            return false;
+        }
+
+        // Mismo limite que por socket, pero sin esperar: el hilo "http" es compartido
+        LimitadorPeticiones limitador = jugador.getLimitador();
+        boolean admitida;
+        boolean excedido;
+        synchronized (limitador) {
+            admitida = limitador.intentar(peticion.ruta);
+            excedido = limitador.excedido();
+        }
+        if (excedido) {
+            // Se quita ya de jugadoresWeb: sus siguientes POST son de un jugador desconocido
+            if (jugadoresWeb.remove(jugador.getId(), jugador)) {
+                Registro.aviso("[!] " + jugador.getNombreUsuario() + " (web) expulsado por exceso de peticiones");
+            }
+            enviarTexto(c.salida, 429, "Too Many Requests", "Demasiadas peticiones", false);
+            cerrarCanal(c.canal);
+            Suscriptor suscriptor = jugador.getSuscriptor();
+            ejecutar(() -> quitar(suscriptor));
+            return true;
+        }
+        if (!admitida) {
+            enviarTexto(c.salida, 429, "Too Many Requests", "Demasiadas peticiones, espera un poco", peticion.keepAlive);
+            return false;
+        }
+
+        // La procesa el hilo de la partida; este hilo queda libre y contesta otro "http" al terminar
+        jugador.responder(formulario.get("respuesta"))
+                .orTimeout(ESPERA_RESPUESTA, TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((resultado, error) -> contestarRespuesta(c, resultado, peticion.keepAlive), peticiones);
+        return true;
+    }
+
+    // resultado null: la partida no la proceso a tiempo
+    private void contestarRespuesta(Conexion c, String[] resultado, boolean keepAlive) {
+        try {
+            if (resultado == null) {
+                enviarTexto(c.salida, 503, "Service Unavailable", "La partida esta ocupada, vuelve a intentarlo", keepAlive);
+            } else if (resultado[0].equals("200")) {
+                enviarTexto(c.salida, 200, "OK", resultado[1], keepAlive);
+            } else {
+                enviarTexto(c.salida, 400, "Bad Request", resultado[1], keepAlive);
+            }
+            if (keepAlive && c.entrada.available() > 0) {
+                atender(c);
+                return;
+            }
+            if (keepAlive) {
+                esperar(c);
+                return;
+            }
+        } catch (IOException e) {
+            // el navegador cerro la conexion
+        }
+        cerrarCanal(c.canal);
+    }
+
+    private void enviarPagina(OutputStream salida, boolean keepAlive) throws IOException {
+        byte[] pagina;
+        try (InputStream in = ServidorEventos.class.getResourceAsStream("/web/quiz.html")) {
+            if (in == null) {
+                enviarTexto(salida, 404, "Not Found", "Pagina no disponible", keepAlive);
+                return;
+            }
+            pagina = in.readAllBytes();
+        }
+        escribirRespuesta(salida, 200, "OK", "text/html; charset=utf-8", pagina, keepAlive);
+    }
+
+    private void enviarTexto(OutputStream salida, int codigo, String razon, String texto, boolean keepAlive) throws IOException {
+        escribirRespuesta(salida, codigo, razon, "text/plain; charset=utf-8",
+                texto.getBytes(StandardCharsets.UTF_8), keepAlive);
+    }
+
+    private void escribirRespuesta(OutputStream salida, int codigo, String razon, String tipo,
+                                   byte[] cuerpo, boolean keepAlive) throws IOException {
+        String cabeceras = "HTTP/1.1 " + codigo + " " + razon + "\r\n"
+                + "Content-Type: " + tipo + "\r\n"
+                + "Content-Length: " + cuerpo.length + "\r\n"
+                + "Access-Control-Allow-Origin: *\r\n"
+                + "Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n"
+                + "\r\n";
+        salida.write(cabeceras.getBytes(StandardCharsets.US_ASCII));
+        salida.write(cuerpo);
+        salida.flush();
+    }
+
+    // ======================== PARSEO HTTP/1.1 ========================
+
+    private static Peticion leerPeticion(InputStream entrada) throws IOException {
+        String lineaPeticion = leerLinea(entrada);
+        if (lineaPeticion == null) return null;
+        // Se toleran lineas vacias entre peticiones
+        while (lineaPeticion.isEmpty()) {
+            lineaPeticion = leerLinea(entrada);
+            if (lineaPeticion == null) return null;
+        }
+
+        String[] partes = lineaPeticion.split(" ");
+        if (partes.length < 3) {
+            throw new IOException("Linea de peticion invalida");
+        }
+
+        Peticion peticion = new Peticion();
+        peticion.metodo = partes[0];
+        String uri = partes[1];
+        int interrogacion = uri.indexOf('?');
+        peticion.ruta = interrogacion == -1 ? uri : uri.substring(0, interrogacion);
+        if (interrogacion != -1) {
+            parsearParametros(uri.substring(interrogacion + 1), peticion.parametros);
+        }
+
+        String linea;
+        while ((linea = leerLinea(entrada)) != null && !linea.isEmpty()) {
+            int dosPuntos = linea.indexOf(':');
+            if (dosPuntos > 0) {
+                peticion.cabeceras.put(linea.substring(0, dosPuntos).trim().toLowerCase(),
+                        linea.substring(dosPuntos + 1).trim());
+            }
+        }
+
+        // HTTP/1.1 mantiene la conexion salvo "Connection: close"; HTTP/1.0 al reves
+        String conexion = peticion.cabeceras.getOrDefault("connection", "").toLowerCase();
+        peticion.keepAlive = partes[2].equals("HTTP/1.1")
+                ? !conexion.equals("close")
+                : conexion.equals("keep-alive");
+
+        int longitud = 0;
+        try {
+            longitud = Integer.parseInt(peticion.cabeceras.getOrDefault("content-length", "0"));
+        } catch (NumberFormatException e) {
+            throw new IOException("Content-Length invalido");
+        }
+        if (longitud < 0 || longitud > MAX_CUERPO) {
+            throw new IOException("Cuerpo demasiado grande");
+        }
+        if (longitud > 0) {
+            byte[] cuerpo = entrada.readNBytes(longitud);
+            if (cuerpo.length < longitud) return null;
+            peticion.cuerpo = new String(cuerpo, StandardCharsets.UTF_8);
+        }
+        return peticion;
+    }
+
+    // Leer una linea terminada en CRLF (o LF); null si se cerro la conexion
+    private static String leerLinea(InputStream entrada) throws IOException {
+        ByteArrayOutputStream linea = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = entrada.read()) != -1) {
+            if (b == '\n') {
+                byte[] bytes = linea.toByteArray();
+                int fin = (bytes.length > 0 && bytes[bytes.length - 1] == '\r') ? bytes.length - 1 : bytes.length;
+                return new String(bytes, 0, fin, StandardCharsets.ISO_8859_1);
+            }
+            if (linea.size() >= MAX_LINEA) {
+                throw new IOException("Linea demasiado larga");
+            }
+            linea.write(b);
+        }
+        return linea.size() == 0 ? null : linea.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    // "a=1&b=2" -> {a=1, b=2}
+    private static void parsearParametros(String texto, Map<String, String> destino) {
+        if (texto == null || texto.isEmpty()) return;
+        for (String par : texto.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual <= 0) continue;
+            try {
+                destino.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // parametro mal codificado, se ignora
+            }
+        }
+    }
+
+    // ======================== UTILIDADES ========================
+
+    private static void cerrarCanal(Channel canal) {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // ya cerrado
+        }
+    }
+
+    private static ThreadFactory hiloDaemon(String nombre) {
+        return r -> {
+            Thread t = new Thread(r, nombre);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package server;
 
+import eventos.Eventos;
+import model.Configuracion;
+import model.ContextoTLS;
 import model.Pregunta;
-import server.ManejadorClienteQuiz;
 
 import java.io.*;
 import java.net.*;
@@ -16,395 +18,260 @@ import java.util.concurrent.*;
  * 1. Se cargan preguntas (desde CSV por FTP o preguntas por defecto)
  * 2. Los clientes se conectan y registran su nombre
  * 3. El admin escribe "iniciar" en la consola del servidor para empezar
- * 4. Para cada pregunta:
- *    a. Se envia la pregunta a todos los clientes (HTTP Response Type: PREGUNTA)
+ *    (en modo automatico empieza solo al llegar a quiz.auto.jugadores)
+ * 4. Para cada pregunta (tiempos controlados por PlanificadorRondas):
+ *    a. Se envia la pregunta a todos los clientes (HTTP Response Type: PREGUNTA,
+ *       o REVEAL con la clave si ya la tenian cifrada por una PRECARGA)
  *    b. Los clientes responden con POST /respuesta (1 char: A/B/C/D)
+ *       hasta que responden todos o vence el tiempo limite de la pregunta
  *    c. Se calcula ranking por velocidad de respuesta
  *    d. Se envia ranking (HTTP Response Type: RANKING)
  *    e. Se envia NEXT para pasar a siguiente pregunta
  * 5. Al final se envia ranking final (HTTP Response Type: FIN)
+ * Los pasos 4 y 5 estan en Partida; este servidor pone las conexiones y el reloj real.
+ *
+ * Los navegadores pueden seguir o jugar la partida por SSE (ver ServidorEventos).
+ *
+ * Con -Dquiz.coordinador=host:puerto el servidor funciona como nodo de una
+ * partida repartida en varios procesos (ver CoordinadorQuiz y NodoQuiz).
  */
 public class ServidorQuiz {
-    private static final int PUERTO = 8080;
-    private static final int MAX_CLIENTES = 10;
-    // Puntos maximos por respuesta correcta (disminuyen segun tiempo)
-    private static final int PUNTOS_MAX = 1000;
-    // Tiempo maximo para responder (milisegundos)
-    private static final int TIMEOUT_RESPUESTA = 15000; // 15 segundos
-
-    // Lista thread-safe de clientes conectados
-    private static Set<ManejadorClienteQuiz> clientes = ConcurrentHashMap.newKeySet();
-    // Contador de respuestas recibidas por pregunta
-    private static int respuestasRecibidas = 0;
-    private static final Object lockRespuestas = new Object();
+    private static final int PUERTO = Configuracion.entero("quiz.puerto", 8080);
+    // Jugadores activos a la vez por el puerto principal (un hilo del pool cada uno)
+    private static final int MAX_CLIENTES = Configuracion.entero("quiz.capacidad", 10);
+    // Jugadores que pueden esperar en la cola de sala cuando el servidor esta lleno
+    private static final int MAX_COLA = Configuracion.entero("quiz.cola.max", 20);
+    // Conexiones aceptadas por segundo (0 = sin limite) y rafaga maxima. Por defecto sin limite:
+    // al empezar entra toda la sala de golpe y la cola de admision (quiz.aceptar.pendientes)
+    // ya frena a los hilos de aceptar; si se activa, la rafaga es del tamano de esa cola
+    private static final int TASA_ACEPTAR = Configuracion.entero("quiz.aceptar.tasa", 0);
+    private static final int RAFAGA_ACEPTAR = Configuracion.entero("quiz.aceptar.rafaga", 256);
+    // Hilos que entregan los mensajes del juego a los sockets (ver EjecutorSerie)
+    private static final int HILOS_DESPACHO = Configuracion.entero("quiz.despacho.hilos", 4);
+    // Modo automatico: el juego avanza solo sin esperar al admin
+    private static final boolean MODO_AUTO = Configuracion.booleano("quiz.auto", false);
+    // Jugadores necesarios para arrancar solo en modo automatico (0 = esperar a "iniciar")
+    private static final int JUGADORES_AUTO = Configuracion.entero("quiz.auto.jugadores", 0);
+    // Enviar cada pregunta cifrada durante el ranking anterior y al empezar solo la clave (ver PrecargaPregunta);
+    // solo a los clientes que lo anuncian en POST /nombre ("Acepta: PRECARGA"), los demas reciben PREGUNTA
+    private static final boolean PRECARGA = Configuracion.booleano("quiz.precarga", true);
+    // Puerto HTTP/1.1 para navegadores (0 = desactivado)
+    private static final int PUERTO_HTTP = Configuracion.entero("quiz.http.puerto", 8081);
+    // Direccion host:puerto del coordinador (null = servidor independiente)
+    private static final String COORDINADOR = Configuracion.texto("quiz.coordinador", null);
+
+    // Jugadores, tiempos y fases de la partida (ver Partida)
+    private static Partida partida;
+    // Canal SSE para navegadores (null si esta desactivado)
+    private static ServidorEventos eventos;
+    // Capacidad, cola de sala y rechazo de conexiones
+    private static ControlAdmision admision;
+    // Hilos que aceptan en el puerto principal
+    private static AceptadorConexiones aceptador;
+    // Conexion con el coordinador (null si no es un nodo)
+    private static volatile NodoQuiz nodo;
+    // Pool compartido para los envios asincronos a los jugadores
+    private static final ExecutorService despachador = Executors.newFixedThreadPool(HILOS_DESPACHO, r -> {
+        Thread t = new Thread(r, "despacho");
+        t.setDaemon(true);
+        return t;
+    });
     // Lista de preguntas
     private static List<Pregunta> preguntas = new ArrayList<>();
 
-    // Direccion FTP para cargar CSV (para nota 6+)
-    private static final String FTP_HOST = "80.225.190.216";
-    private static final int FTP_PUERTO = 21;
-
     public static void main(String[] args) {
         ExecutorService pool = Executors.newFixedThreadPool(MAX_CLIENTES);
 
-        System.out.println("╔══════════════════════════════════╗");
-        System.out.println("║      SERVIDOR QUIZ BLOOKET       ║");
-        System.out.println("╚══════════════════════════════════╝");
+        Registro.info("╔══════════════════════════════════╗");
+        Registro.info("║      SERVIDOR QUIZ BLOOKET       ║");
+        Registro.info("╚══════════════════════════════════╝");
+
+        // Eventos JFR listos antes de la primera conexion (ver Eventos)
+        Eventos.registrar();
 
         // Intentar cargar preguntas desde FTP, si falla usar las por defecto
-        cargarPreguntas();
+        // (en modo nodo las preguntas las manda el coordinador)
+        if (COORDINADOR == null) {
+            preguntas = CargadorPreguntas.cargarPreguntas();
+        }
 
-        System.out.println("[*] Servidor iniciado en puerto " + PUERTO);
-        System.out.println("[*] " + preguntas.size() + " preguntas cargadas");
-        System.out.println("[*] Esperando jugadores...");
-        System.out.println("[*] Escribe 'iniciar' para empezar el juego\n");
+        Registro.info("[*] Servidor iniciado en puerto " + PUERTO);
+        if (COORDINADOR == null) {
+            Registro.info("[*] " + preguntas.size() + " preguntas cargadas");
+        }
+        Registro.info("[*] Esperando jugadores...");
+        if (COORDINADOR != null) {
+            Registro.info("[*] Modo nodo: la partida la dirige el coordinador " + COORDINADOR + "\n");
+        } else if (MODO_AUTO && JUGADORES_AUTO > 0) {
+            Registro.info("[*] Modo automatico: el juego empieza con " + JUGADORES_AUTO + " jugadores\n");
+        } else {
+            Registro.info("[*] Escribe 'iniciar' para empezar el juego\n");
+        }
 
-        // Hilo para aceptar conexiones
-        Thread hiloConexiones = new Thread(() -> {
-            try (ServerSocket serverSocket = new ServerSocket(PUERTO)) {
-                while (true) {
-                    Socket clientSocket = serverSocket.accept();
-                    ManejadorClienteQuiz manejador = new ManejadorClienteQuiz(clientSocket);
-                    clientes.add(manejador);
-                    pool.execute(manejador);
-                }
+        // Cargar el certificado ya: si falta, mejor enterarse antes de que entren jugadores
+        if (ContextoTLS.activo()) {
+            try {
+                ContextoTLS.servidor();
+                Registro.info("[*] TLS activado en el puerto " + PUERTO);
             } catch (IOException e) {
-                e.printStackTrace();
-            }
-        });
-        hiloConexiones.setDaemon(true);
-        hiloConexiones.start();
-
-        // Hilo principal: espera comando del admin para iniciar
-        Scanner scannerAdmin = new Scanner(System.in);
-        while (true) {
-            String comando = scannerAdmin.nextLine();
-            if (comando.equalsIgnoreCase("iniciar")) {
-                if (clientes.isEmpty()) {
-                    System.out.println("[!] No hay jugadores conectados. Espera a que se conecten.");
-                } else {
-                    System.out.println("\n[*] JUEGO INICIADO con " + clientes.size() + " jugadores!\n");
-                    iniciarJuego(scannerAdmin);
-                    break;
-                }
+                Registro.aviso("[!] " + e.getMessage());
+                return;
             }
         }
 
-        scannerAdmin.close();
-        pool.shutdown();
-        System.out.println("\n[*] Servidor cerrado.");
-    }// fin main
-
-    // ======================== LOGICA DEL JUEGO ========================
-
-    private static void iniciarJuego(Scanner scannerAdmin) {
-        // Avisar a todos que empieza el juego
-        for (ManejadorClienteQuiz cliente : clientes) {
-            cliente.enviarMensaje("INICIO", "El juego va a comenzar! " + preguntas.size() + " preguntas.");
+        // La partida existe desde el principio: los jugadores entran en ella al dar su nombre
+        // (en modo nodo los tiempos los marca el coordinador)
+        Scanner scannerAdmin = new Scanner(System.in);
+        partida = new Partida(COORDINADOR != null || MODO_AUTO, COORDINADOR != null ? null : scannerAdmin,
+                RelojSistema.INSTANCIA, Registro::info);
+        partida.setOyenteEventos(ServidorQuiz::publicarEvento);
+        partida.setPrecargaActiva(PRECARGA);
+
+        // Hilos para aceptar conexiones (a ritmo limitado) y pasarlas al control de admision
+        admision = new ControlAdmision(MAX_CLIENTES, MAX_COLA, pool);
+        LimitadorTokens limitadorAceptar = TASA_ACEPTAR > 0 ? new LimitadorTokens(TASA_ACEPTAR, RAFAGA_ACEPTAR) : null;
+        Registro.info("[*] Capacidad: " + MAX_CLIENTES + " jugadores + " + MAX_COLA + " en cola");
+        aceptador = new AceptadorConexiones(PUERTO, limitadorAceptar, admision);
+        try {
+            aceptador.iniciar();
+        } catch (IOException e) {
+            Registro.error("[!] Error en el puerto " + PUERTO, e);
+            Registro.vaciar();
+            return;
         }
 
-        // Pausa breve
-        esperar(2000);
-
-        // Iterar por cada pregunta
-        for (int i = 0; i < preguntas.size(); i++) {
-            Pregunta pregunta = preguntas.get(i);
-
-            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            System.out.println("Pregunta " + (i + 1) + "/" + preguntas.size() + ": " + pregunta.getTexto());
-            System.out.println("  A) " + pregunta.getOpcionA());
-            System.out.println("  B) " + pregunta.getOpcionB());
-            System.out.println("  C) " + pregunta.getOpcionC());
-            System.out.println("  D) " + pregunta.getOpcionD());
-            System.out.println("  Correcta: " + pregunta.getRespuestaCorrecta());
-            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-
-            // Resetear contador de respuestas
-            synchronized (lockRespuestas) {
-                respuestasRecibidas = 0;
-            }
-
-            // Enviar pregunta a todos
-            for (ManejadorClienteQuiz cliente : clientes) {
-                cliente.enviarPregunta(pregunta, i + 1, preguntas.size());
+        // Listener HTTP/SSE para navegadores
+        if (PUERTO_HTTP > 0) {
+            try {
+                eventos = new ServidorEventos(PUERTO_HTTP);
+                eventos.iniciar();
+            } catch (IOException e) {
+                Registro.aviso("[!] No se pudo abrir el puerto HTTP " + PUERTO_HTTP + ": " + e.getMessage());
+                eventos = null;
             }
+        }
 
-            // Esperar a que todos respondan o se acabe el tiempo
-            esperarRespuestas();
-
-            // Calcular puntos y ranking para esta pregunta
-            calcularPuntos(pregunta);
+        if (COORDINADOR != null) {
+            // Modo nodo: seguir las ordenes del coordinador hasta el FIN
+            nodo = new NodoQuiz(COORDINADOR);
+            nodo.ejecutar();
+            cerrar(pool);
+            return;
+        }
 
-            // Generar y enviar ranking
-            String ranking = generarRanking();
-            System.out.println("\n" + ranking);
+        // Hilo principal: espera comando del admin para iniciar
+        Registro.info("[*] Duracion estimada: " + (partida.getPlanificador().duracionEstimada(preguntas) / 1000) + "s"
+                + (MODO_AUTO ? " (modo automatico)" : " + pausas del admin"));
 
-            for (ManejadorClienteQuiz cliente : clientes) {
-                cliente.enviarRanking(ranking);
+        if (MODO_AUTO && JUGADORES_AUTO > 0) {
+            // Modo desatendido: arrancar cuando haya suficientes jugadores
+            while (partida.numeroJugadores() < JUGADORES_AUTO) {
+                esperar(200);
             }
-
-            // Si no es la ultima pregunta, esperar a que el admin escriba NEXT
-            if (i < preguntas.size() - 1) {
-                System.out.println("\n[*] Escribe NEXT para pasar a la siguiente pregunta");
-                while (true) {
-                    String cmd = scannerAdmin.nextLine();
-                    if (cmd.equalsIgnoreCase("NEXT")) {
+        } else {
+            while (true) {
+                String comando = scannerAdmin.nextLine();
+                if (comando.equalsIgnoreCase("iniciar")) {
+                    if (partida.numeroJugadores() == 0) {
+                        Registro.aviso("[!] No hay jugadores conectados. Espera a que se conecten.");
+                    } else {
                         break;
                     }
-                    System.out.println("[!] Escribe NEXT para continuar");
-                }
-                // Avisar a los clientes que se pasa a la siguiente
-                for (ManejadorClienteQuiz cliente : clientes) {
-                    cliente.enviarNext();
                 }
-                esperar(1000);
             }
-        }// fin for preguntas
-
-        // Enviar ranking final
-        esperar(2000);
-        String rankingFinal = "=== RANKING FINAL ===\n" + generarRanking();
-        System.out.println("\n" + rankingFinal);
-
-        for (ManejadorClienteQuiz cliente : clientes) {
-            cliente.enviarFinJuego(rankingFinal);
         }
-    }// fin iniciarJuego
 
-    // Esperar a que todos los clientes respondan o se acabe el timeout
-    private static void esperarRespuestas() {
-        long inicio = System.currentTimeMillis();
-        while (true) {
-            synchronized (lockRespuestas) {
-                if (respuestasRecibidas >= clientes.size()) {
-                    System.out.println("  Todos han respondido!");
-                    break;
-                }
-            }
-            if (System.currentTimeMillis() - inicio > TIMEOUT_RESPUESTA) {
-                System.out.println("  Tiempo agotado!");
-                break;
-            }
-            esperar(100); // Comprobar cada 100ms
+        Registro.info("\n[*] JUEGO INICIADO con " + partida.numeroJugadores() + " jugadores!\n");
+        Registro.info("[*] " + aceptador.resumen() + "\n");
+        if (ContextoTLS.activo()) {
+            Registro.info("[*] " + MetricasTLS.resumen() + "\n");
         }
-    }
+        partida.jugar(preguntas);
 
-    // Calcular puntos segun velocidad: mas rapido = mas puntos
-    private static void calcularPuntos(Pregunta pregunta) {
-        for (ManejadorClienteQuiz cliente : clientes) {
-            if (cliente.haRespondido() && cliente.getRespuestaActual() == pregunta.getRespuestaCorrecta()) {
-                // Puntos inversamente proporcionales al tiempo de respuesta
-                // Respuesta instantanea = PUNTOS_MAX, respuesta en TIMEOUT = ~100 puntos
-                long tiempo = cliente.getTiempoRespuesta();
-                int puntos = (int) Math.max(100,
-                        PUNTOS_MAX - (tiempo * (PUNTOS_MAX - 100) / TIMEOUT_RESPUESTA));
-                cliente.sumarPuntos(puntos);
-                cliente.enviarResultado(true, puntos);
-            } else {
-                cliente.enviarResultado(false, 0);
-            }
-        }
-    }
+        scannerAdmin.close();
+        cerrar(pool);
+    }// fin main
 
-    // Generar string del ranking ordenado por puntuacion
-    private static String generarRanking() {
-        // Crear lista ordenable de clientes
-        List<ManejadorClienteQuiz> listaOrdenada = new ArrayList<>(clientes);
-        // Ordenar por puntuacion descendente
-        for (int i = 0; i < listaOrdenada.size() - 1; i++) {
-            for (int j = 0; j < listaOrdenada.size() - i - 1; j++) {
-                if (listaOrdenada.get(j).getPuntuacion() < listaOrdenada.get(j + 1).getPuntuacion()) {
-                    ManejadorClienteQuiz temp = listaOrdenada.get(j);
-                    listaOrdenada.set(j, listaOrdenada.get(j + 1));
-                    listaOrdenada.set(j + 1, temp);
-                }
-            }
+    private static void cerrar(ExecutorService pool) {
+        // Dejar que salgan los ultimos mensajes (FIN) antes de cerrar
+        despachador.shutdown();
+        try {
+            despachador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < listaOrdenada.size(); i++) {
-            ManejadorClienteQuiz c = listaOrdenada.get(i);
-            sb.append((i + 1)).append(". ")
-                    .append(c.getNombreUsuario())
-                    .append(" - ")
-                    .append(c.getPuntuacion())
-                    .append(" pts");
-            if (i < listaOrdenada.size() - 1) sb.append(" | ");
+        if (eventos != null) {
+            eventos.cerrar();
         }
-        return sb.toString();
-    }
-
-    // ======================== CARGA DE PREGUNTAS ========================
-
-    private static void cargarPreguntas() {
-        // Intentar cargar desde FTP
-        System.out.println("[*] Intentando cargar preguntas desde FTP " + FTP_HOST + "...");
-        List<Pregunta> preguntasFTP = cargarDesdeCSV_FTP();
-
-        if (preguntasFTP != null && !preguntasFTP.isEmpty()) {
-            preguntas = preguntasFTP;
-            System.out.println("[*] Preguntas cargadas desde FTP correctamente!");
-        } else {
-            System.out.println("[!] No se pudo cargar desde FTP. Usando preguntas por defecto.");
-            cargarPreguntasPorDefecto();
+        pool.shutdown();
+        if (ContextoTLS.activo()) {
+            Registro.info("[*] " + MetricasTLS.resumen());
         }
-
-        Collections.shuffle(preguntas);
+        aceptador.cerrar();
+        Registro.info("[*] " + aceptador.resumen());
+        Registro.info("[*] " + LimitadorPeticiones.resumen());
+        Registro.info("\n[*] Servidor cerrado.");
+        Registro.vaciar();
     }
 
-    /**
-     * Cargar preguntas desde un archivo CSV en servidor FTP.
-     * Usa conexion FTP manual con Sockets (basado en los patrones del curso).
-     * Formato CSV esperado: pregunta,opcionA,opcionB,opcionC,opcionD,respuestaCorrecta
-     */
-    private static List<Pregunta> cargarDesdeCSV_FTP() {
-        List<Pregunta> lista = new ArrayList<>();
-        Socket socketFTP = null;
-        BufferedReader lectorFTP = null;
-        PrintWriter escritorFTP = null;
-
-        try {
-            // Conexion al servidor FTP (puerto 21)
-            socketFTP = new Socket(FTP_HOST, FTP_PUERTO);
-            lectorFTP = new BufferedReader(new InputStreamReader(socketFTP.getInputStream()));
-            escritorFTP = new PrintWriter(socketFTP.getOutputStream(), true);
-
-            // Leer mensaje de bienvenida del FTP
-            String respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
-
-            // Login anonimo
-            escritorFTP.println("USER alumno");
-            respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
-
-            escritorFTP.println("PASS alumno");
-            respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
-
-            // Modo pasivo para transferencia de datos
-            escritorFTP.println("PASV");
-            respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
-
-            // Parsear IP y puerto del modo pasivo: 227 Entering Passive Mode (h1,h2,h3,h4,p1,p2)
-            int inicioParentesis = respuesta.indexOf('(');
-            int finParentesis = respuesta.indexOf(')');
-            if (inicioParentesis == -1 || finParentesis == -1) {
-                System.out.println("  [!] No se pudo parsear respuesta PASV");
-                return null;
-            }
-            String[] numeros = respuesta.substring(inicioParentesis + 1, finParentesis).split(",");
-            String ipDatos = numeros[0] + "." + numeros[1] + "." + numeros[2] + "." + numeros[3];
-            int puertoDatos = Integer.parseInt(numeros[4]) * 256 + Integer.parseInt(numeros[5]);
-
-            // Solicitar el archivo CSV
-            escritorFTP.println("RETR /ftp/datos/blooket.csv");
-            respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
-
-            // Conectar al puerto de datos para recibir el archivo
-            Socket socketDatos = new Socket(ipDatos, puertoDatos);
-            BufferedReader lectorDatos = new BufferedReader(
-                    new InputStreamReader(socketDatos.getInputStream())
-            );
-
-            // Leer CSV linea por linea
-            String linea;
-            boolean primeraLinea = true;
-            while ((linea = lectorDatos.readLine()) != null) {
-                // Saltar cabecera si existe
-                if (primeraLinea) {
-                    primeraLinea = false;
-                    // Si la primera linea no parece una pregunta valida, es cabecera
-                    if (linea.toLowerCase().contains("pregunta") || linea.toLowerCase().contains("question")) {
-                        continue;
-                    }
-                }
-                if (!linea.trim().isEmpty()) {
-                    Pregunta p = Pregunta.fromCSV(linea);
-                    if (p != null) {
-                        lista.add(p);
-                    }
-                }
-            }
-
-            // Cerrar conexion de datos
-            lectorDatos.close();
-            socketDatos.close();
-
-            // Leer confirmacion de transferencia
-            respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
-
-            // Cerrar sesion FTP
-            escritorFTP.println("QUIT");
-            respuesta = lectorFTP.readLine();
-            System.out.println("  FTP: " + respuesta);
+    // ======================== METODOS PARA LOS MANEJADORES ========================
 
-        } catch (IOException e) {
-            System.out.println("  [!] Error FTP: " + e.getMessage());
-            return null;
-        } finally {
-            try {
-                if (lectorFTP != null) lectorFTP.close();
-                if (escritorFTP != null) escritorFTP.close();
-                if (socketFTP != null) socketFTP.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+    // Notificar nueva conexion
+    public static void notificarConexion(String nombre) {
+        int total = partida.numeroJugadores();
+        Registro.info("[*] Jugadores conectados: " + total);
+        // Avisar a todos los demas
+        String aviso = nombre + " se ha unido! (" + total + " jugadores)";
+        for (Jugador cliente : partida.getJugadores()) {
+            if (!nombre.equals(cliente.getNombreUsuario())) {
+                cliente.enviarMensaje("INFO", aviso);
             }
         }
-
-        return lista;
+        publicarEvento("INFO", aviso);
+        if (nodo != null) {
+            nodo.informarJugadores();
+        }
     }
 
-    // Preguntas por defecto si no se puede acceder al FTP
-    private static void cargarPreguntasPorDefecto() {
-        preguntas.add(new Pregunta(
-                "Que protocolo usa la web para transferir paginas?",
-                "FTP", "HTTP", "SMTP", "SSH", 'B'));
-        preguntas.add(new Pregunta(
-                "Que puerto usa por defecto el protocolo HTTP?",
-                "21", "443", "80", "8080", 'C'));
-        preguntas.add(new Pregunta(
-                "Que clase de Java se usa para crear un servidor TCP?",
-                "Socket", "ServerSocket", "DatagramSocket", "URLConnection", 'B'));
-        preguntas.add(new Pregunta(
-                "Cual de estos NO es un metodo HTTP?",
-                "GET", "POST", "SEND", "DELETE", 'C'));
-        preguntas.add(new Pregunta(
-                "Que significa TCP?",
-                "Transfer Control Protocol", "Transmission Control Protocol",
-                "Technical Communication Protocol", "Transport Connection Protocol", 'B'));
+    // Registrar un jugador que ya ha enviado su nombre (socket o navegador)
+    public static void agregarJugador(Jugador jugador) {
+        partida.agregar(jugador);
+        notificarConexion(jugador.getNombreUsuario());
     }
 
-    // ======================== METODOS PARA LOS MANEJADORES ========================
+    static Executor getDespachador() {
+        return despachador;
+    }
 
-    // Notificar que un cliente respondio (llamado desde ManejadorClienteQuiz)
-    public static void clienteRespondio() {
-        synchronized (lockRespuestas) {
-            respuestasRecibidas++;
-        }
+    static Partida getPartida() {
+        return partida;
     }
 
-    // Notificar nueva conexion
-    public static void notificarConexion(String nombre) {
-        System.out.println("[*] Jugadores conectados: " + clientes.size());
-        // Avisar a todos los demas
-        for (ManejadorClienteQuiz cliente : clientes) {
-            if (!cliente.getNombreUsuario().equals(nombre)) {
-                cliente.enviarMensaje("INFO", nombre + " se ha unido! (" + clientes.size() + " jugadores)");
-            }
-        }
+    public static int numeroJugadores() {
+        return partida.numeroJugadores();
     }
 
     // Remover cliente desconectado
-    public static void removerCliente(ManejadorClienteQuiz cliente) {
-        clientes.remove(cliente);
+    public static void removerCliente(Jugador cliente) {
+        partida.quitar(cliente);
+        if (cliente instanceof ManejadorClienteQuiz && admision != null) {
+            // Deja libre su hilo: entra el primero de la cola
+            admision.liberar();
+        }
+        if (nodo != null) {
+            nodo.informarJugadores();
+        }
     }
 
     // ======================== UTILIDADES ========================
 
+    // Publicar un evento a los navegadores (una sola codificacion para todos)
+    private static void publicarEvento(String tipo, String datos) {
+        if (eventos != null) {
+            eventos.publicar(tipo, datos);
+        }
+    }
+
     private static void esperar(int milisegundos) {
         try {
             Thread.sleep(milisegundos);
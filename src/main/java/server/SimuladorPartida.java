@@ -0,0 +1,124 @@
+package server;
+
+import eventos.Eventos;
+import model.Pregunta;
+
+import java.util.*;
+
+/**
+ * Simulador de partidas completas en memoria, con reloj virtual.
+ *
+ * Juega la misma logica que el servidor (Partida, PlanificadorRondas,
+ * ProcesadorPuntos) con JugadorSimulado en vez de sockets, y comprueba en
+ * cada partida:
+ *   - puntuacion de cada jugador = la calculada por el propio jugador
+ *     (incluye respuestas en el ultimo milisegundo y tardias)
+ *   - suma de los RESULTADO recibidos = puntuacion
+ *   - respuestas invalidas o repetidas rechazadas
+ *   - ranking final ordenado por puntos y, en empate, por orden de llegada
+ *
+ * Con la misma semilla sale siempre la misma huella; si cambia sin tocar la
+ * puntuacion o el ranking, algo se ha roto.
+ *
+ * Uso: java server.SimuladorPartida [partidas] [jugadores] [semilla]
+ */
+public class SimuladorPartida {
+    // Cuantos fallos se muestran como mucho
+    private static final int MAX_FALLOS_MOSTRADOS = 10;
+
+    public static void main(String[] args) {
+        int partidas = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int numJugadores = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long semilla = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        System.out.println("[*] Simulando " + partidas + " partidas de " + numJugadores
+                + " jugadores (semilla " + semilla + ")");
+
+        Eventos.registrar(); // que la carga de JFR no cuente en la medida
+        List<Pregunta> base = CargadorPreguntas.cargarPreguntasPorDefecto();
+        long huella = 17;
+        int fallos = 0;
+        long rondas = 0;
+        long tiempoVirtual = 0;
+        long inicio = System.nanoTime();
+
+        for (int n = 0; n < partidas; n++) {
+            Random random = new Random(semilla * 1_000_003L + n);
+            RelojVirtual reloj = new RelojVirtual();
+            Partida partida = new Partida(true, null, reloj, null);
+
+            List<Pregunta> preguntas = preguntasAleatorias(base, random);
+            List<JugadorSimulado> jugadores = new ArrayList<>();
+            for (int i = 0; i < numJugadores; i++) {
+                JugadorSimulado jugador = new JugadorSimulado("J" + i, reloj,
+                        new Random(random.nextLong()), 0.3 + 0.6 * random.nextDouble());
+                jugadores.add(jugador);
+                partida.agregar(jugador);
+            }
+
+            partida.jugar(preguntas);
+            rondas += preguntas.size();
+            tiempoVirtual += reloj.ahoraMs();
+
+            List<String> problemas = comprobar(partida, jugadores, preguntas.size(), reloj);
+            if (!problemas.isEmpty()) {
+                if (fallos < MAX_FALLOS_MOSTRADOS) {
+                    System.out.println("[!] Partida " + n + ": " + problemas);
+                }
+                fallos++;
+            }
+            huella = huella * 31 + partida.generarRanking().hashCode();
+        }
+
+        long duracion = System.nanoTime() - inicio;
+        System.out.println("[*] " + partidas + " partidas (" + rondas + " rondas) en " + duracion / 1_000_000 + "ms: "
+                + (long) (partidas / (duracion / 1e9)) + " partidas/s, "
+                + (rondas == 0 ? 0 : duracion / rondas / 1000) + "us por ronda");
+        System.out.println("[*] Tiempo de juego simulado: " + tiempoVirtual / 3_600_000 + "h");
+        System.out.println("[*] Huella: " + Long.toHexString(huella));
+        System.out.println(fallos == 0 ? "[*] Todas las comprobaciones OK" : "[!] " + fallos + " partidas con fallos");
+        if (fallos > 0) {
+            System.exit(1);
+        }
+    }// fin main
+
+    // Las preguntas por defecto en orden aleatorio y con tiempos limite distintos
+    private static List<Pregunta> preguntasAleatorias(List<Pregunta> base, Random random) {
+        List<Pregunta> preguntas = new ArrayList<>();
+        for (Pregunta p : base) {
+            int segundos = Pregunta.TIEMPO_MINIMO + random.nextInt(26);
+            preguntas.add(new Pregunta(p.getTexto(), p.getOpcionA(), p.getOpcionB(), p.getOpcionC(),
+                    p.getOpcionD(), p.getRespuestaCorrecta(), segundos));
+        }
+        Collections.shuffle(preguntas, random);
+        return preguntas;
+    }
+
+    private static List<String> comprobar(Partida partida, List<JugadorSimulado> jugadores, int totalPreguntas,
+                                          RelojVirtual reloj) {
+        List<String> problemas = new ArrayList<>();
+        for (JugadorSimulado jugador : jugadores) {
+            String problema = jugador.comprobar(totalPreguntas);
+            if (problema != null) {
+                problemas.add(problema);
+            }
+        }
+
+        // Ranking: mas puntos primero; empate -> llego antes
+        List<JugadorSimulado> esperado = new ArrayList<>(jugadores);
+        esperado.sort(Comparator.comparingInt(JugadorSimulado::getPuntuacion).reversed()
+                .thenComparingLong(JugadorSimulado::getOrden));
+        List<EntradaRanking> ranking = partida.rankingParcial(Integer.MAX_VALUE);
+        for (int i = 0; i < esperado.size(); i++) {
+            if (i >= ranking.size() || !ranking.get(i).getNombre().equals(esperado.get(i).getNombreUsuario())) {
+                problemas.add("ranking: posicion " + (i + 1) + " deberia ser " + esperado.get(i).getNombreUsuario());
+                break;
+            }
+        }
+
+        if (reloj.getPendientes() > 0) {
+            problemas.add(reloj.getPendientes() + " eventos sin ejecutar al terminar");
+        }
+        return problemas;
+    }
+}// fin clase